@@ -199,6 +199,8 @@ def generate_statistics():
     print("\nTo load data into PostgreSQL:")
     print("  psql -U postgres -h localhost -d benchmark -c \"\\COPY category FROM 'generated/categories.csv' CSV HEADER\"")
     print("  psql -U postgres -h localhost -d benchmark -c \"\\COPY item FROM 'generated/items.csv' CSV HEADER\"")
+    print("  psql -U postgres -h localhost -d benchmark -c \"SELECT setval('category_id_seq', (SELECT max(id) FROM category))\"")
+    print("  psql -U postgres -h localhost -d benchmark -c \"SELECT setval('item_id_seq', (SELECT max(id) FROM item))\"")
     print("="*60)
 
 
@@ -4,6 +4,8 @@
 -- Drop existing tables if they exist
 DROP TABLE IF EXISTS item CASCADE;
 DROP TABLE IF EXISTS category CASCADE;
+DROP TABLE IF EXISTS item_tombstone;
+DROP TABLE IF EXISTS category_tombstone;
 
 -- Category table
 CREATE TABLE category (
@@ -24,17 +26,38 @@ CREATE TABLE item (
     updated_at    TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+-- Tombstones: one row per deleted id, written in the deleting transaction,
+-- so the change feeds (GET /items/changes, /categories/changes) can report
+-- deletes. Ids are never reused.
+CREATE TABLE item_tombstone (
+    id            BIGINT PRIMARY KEY,
+    deleted_at    TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE category_tombstone (
+    id            BIGINT PRIMARY KEY,
+    deleted_at    TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Item ids are allocated by Hibernate's pooled optimizer (allocationSize = 50):
+-- one nextval reserves a block of 50 ids, which keeps JDBC batching enabled.
+-- Plain DEFAULT nextval inserts remain collision-free.
+ALTER SEQUENCE item_id_seq INCREMENT BY 50;
+
 -- Indexes for performance
 CREATE INDEX idx_item_category ON item(category_id);
-CREATE INDEX idx_item_updated_at ON item(updated_at);
+CREATE INDEX idx_item_updated_at ON item(updated_at, id);
+CREATE INDEX idx_category_updated_at ON category(updated_at, id);
 CREATE INDEX idx_category_code ON category(code);
 CREATE INDEX idx_item_sku ON item(sku);
+CREATE INDEX idx_item_tombstone_deleted_at ON item_tombstone(deleted_at, id);
+CREATE INDEX idx_category_tombstone_deleted_at ON category_tombstone(deleted_at, id);
 
 -- Add comments for documentation
 COMMENT ON TABLE category IS 'Product categories (2000 rows expected)';
 COMMENT ON TABLE item IS 'Product items (100000 rows expected, ~50 per category)';
 COMMENT ON INDEX idx_item_category IS 'Index for JOIN queries and filtering by category';
-COMMENT ON INDEX idx_item_updated_at IS 'Index for temporal queries';
+COMMENT ON INDEX idx_item_updated_at IS 'Index for temporal queries and the (updated_at, id) change feed order';
 
 -- Grant permissions (adjust as needed)
 -- GRANT ALL PRIVILEGES ON ALL TABLES IN SCHEMA public TO benchmark_user;
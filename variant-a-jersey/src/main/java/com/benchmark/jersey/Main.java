@@ -1,7 +1,9 @@
 package com.benchmark.jersey;
 
 import com.benchmark.jersey.config.JerseyConfig;
+import com.benchmark.jersey.config.ServerThreading;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 
 import java.io.IOException;
@@ -13,6 +15,10 @@ import java.net.URI;
 public class Main {
     
     private static final String BASE_URI = "http://0.0.0.0:8080/";
+    // Bytes queued per connection before a write blocks. Grizzly's default
+    // follows the socket buffer, and each small SSE flush holds a whole
+    // 8 KB buffer, so a stalled stream subscriber would pin hundreds of MB.
+    private static final int MAX_PENDING_BYTES = 64 * 1024;
 
     public static void main(String[] args) throws IOException, InterruptedException {
         System.out.println("=".repeat(60));
@@ -20,24 +26,47 @@ public class Main {
         System.out.println("=".repeat(60));
         
         // Create and start HTTP server
-        final HttpServer server = startServer();
+        final ServerThreading threading = ServerThreading.fromEnv();
+        final JerseyConfig config = new JerseyConfig(threading);
+        final HttpServer server = startServer(threading, config);
         
         System.out.println("\nServer started successfully!");
         System.out.println("API Base URL: " + BASE_URI);
+        System.out.println("Worker threads: " + threading.describe());
+        System.out.println("Bulkheads: " + config.getBulkheads().describe());
+        System.out.println("Compression: " + config.getCompression().describe());
+        System.out.println("JSON writer: " + config.describeJson());
+        System.out.println("Connection pool: " + config.describePool());
         System.out.println("JMX Metrics: Configure with -javaagent for Prometheus export");
         System.out.println("\nEndpoints:");
         System.out.println("  GET    /categories");
         System.out.println("  GET    /categories/{id}");
+        System.out.println("  GET    /categories/stats");
+        System.out.println("  GET    /categories/changes?since={token}&limit=");
+        System.out.println("  GET    /categories/{id}/stats");
         System.out.println("  POST   /categories");
         System.out.println("  PUT    /categories/{id}");
-        System.out.println("  DELETE /categories/{id}");
+        System.out.println("  PATCH  /categories/{id}          (application/merge-patch+json)");
+        System.out.println("  DELETE /categories/{id}?onItems=reject|cascade|reassign&reassignTo={id}");
         System.out.println("  GET    /categories/{id}/items");
+        System.out.println("  DELETE /categories/{id}/items");
         System.out.println("  GET    /items");
         System.out.println("  GET    /items/{id}");
         System.out.println("  GET    /items?categoryId={id}");
+        System.out.println("  GET    /items/by-sku/{sku}");
+        System.out.println("  GET    /items/by-sku?sku=A&sku=B");
+        System.out.println("  GET    /items/search?q=&categoryId=&minPrice=&maxPrice=");
+        System.out.println("  GET    /items/changes?since={token}&limit=");
+        System.out.println("  GET    /items/stream?categoryId=  (text/event-stream)");
         System.out.println("  POST   /items");
+        System.out.println("  POST   /items/bulk");
         System.out.println("  PUT    /items/{id}");
+        System.out.println("  PATCH  /items/{id}               (application/merge-patch+json)");
+        System.out.println("  POST   /items/{id}/stock:adjust");
         System.out.println("  DELETE /items/{id}");
+        System.out.println("  POST   /admin/import/items       (text/csv | application/x-ndjson)");
+        System.out.println("  POST   /admin/import/categories  (text/csv | application/x-ndjson)");
+        System.out.println("  GET    /export/items?format=csv|ndjson");
         System.out.println("\nPress CTRL+C to stop the server...");
         System.out.println("=".repeat(60));
         
@@ -45,6 +74,7 @@ public class Main {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("\nShutting down server...");
             server.shutdownNow();
+            config.getBulkheads().shutdown();
             System.out.println("Server stopped.");
         }));
         
@@ -52,8 +82,13 @@ public class Main {
         Thread.currentThread().join();
     }
 
-    private static HttpServer startServer() {
-        final JerseyConfig config = new JerseyConfig();
-        return GrizzlyHttpServerFactory.createHttpServer(URI.create(BASE_URI), config);
+    private static HttpServer startServer(ServerThreading threading, JerseyConfig config) throws IOException {
+        final HttpServer server = GrizzlyHttpServerFactory.createHttpServer(URI.create(BASE_URI), config, false);
+        threading.apply(server);
+        for (NetworkListener listener : server.getListeners()) {
+            listener.setMaxPendingBytes(MAX_PENDING_BYTES);
+        }
+        server.start();
+        return server;
     }
 }
@@ -0,0 +1,144 @@
+package com.benchmark.jersey.config;
+
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Smile and CBOR bodies for service-to-service callers: the same DTOs,
+ * written and read by copies of the {@link JacksonConfig} mapper over a
+ * binary factory, so modules and features match the JSON output.
+ * <p>
+ * Also hands out the mapper for code that drives a generator itself
+ * (streamed item pages), and relabels the hand-written JSON error
+ * strings as application/json when the client negotiated a binary type.
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+@Produces({BinaryJacksonProvider.SMILE, BinaryJacksonProvider.CBOR})
+@Consumes({BinaryJacksonProvider.SMILE, BinaryJacksonProvider.CBOR})
+public class BinaryJacksonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object>,
+        ContainerResponseFilter {
+
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String CBOR = "application/cbor";
+
+    public static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+    public static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+
+    private final ObjectMapper smile;
+    private final ObjectMapper cbor;
+
+    public BinaryJacksonProvider(ObjectMapper json) {
+        // The container owns the entity streams
+        this.smile = json.copyWith(SmileFactory.builder()
+                .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+                .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .build());
+        this.cbor = json.copyWith(CBORFactory.builder()
+                .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+                .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .build());
+    }
+
+    /**
+     * Mapper for a binary media type, or null for anything else
+     */
+    public ObjectMapper mapperFor(MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        if (mediaType.isCompatible(SMILE_TYPE)) {
+            return smile;
+        }
+        if (mediaType.isCompatible(CBOR_TYPE)) {
+            return cbor;
+        }
+        return null;
+    }
+
+    /**
+     * First of JSON, Smile or CBOR the client accepts, in its order of
+     * preference; wildcards mean JSON
+     */
+    public static MediaType negotiate(List<MediaType> acceptable) {
+        for (MediaType type : acceptable) {
+            if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                return MediaType.APPLICATION_JSON_TYPE;
+            }
+            if (type.isCompatible(SMILE_TYPE)) {
+                return SMILE_TYPE;
+            }
+            if (type.isCompatible(CBOR_TYPE)) {
+                return CBOR_TYPE;
+            }
+        }
+        return MediaType.APPLICATION_JSON_TYPE;
+    }
+
+    /**
+     * Whether the type is one of the binary formats (wildcards excluded)
+     */
+    public static boolean isBinary(MediaType mediaType) {
+        return mediaType != null && !mediaType.isWildcardType() && !mediaType.isWildcardSubtype()
+                && (mediaType.isCompatible(SMILE_TYPE) || mediaType.isCompatible(CBOR_TYPE));
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBinary(mediaType) && type != String.class;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        return mapper.readValue(entityStream, mapper.constructType(genericType));
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        // Streamed pages encode themselves
+        return isBinary(mediaType) && type != String.class && !StreamingOutput.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        mapper.writerFor(mapper.constructType(genericType)).writeValue(entityStream, value);
+    }
+
+    /**
+     * Error bodies are literal JSON strings; say so instead of claiming Smile/CBOR
+     */
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (response.getEntity() instanceof String && isBinary(response.getMediaType())) {
+            response.getHeaders().putSingle("Content-Type", MediaType.APPLICATION_JSON);
+        }
+    }
+}
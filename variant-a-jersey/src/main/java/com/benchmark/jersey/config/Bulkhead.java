@@ -0,0 +1,200 @@
+package com.benchmark.jersey.config;
+
+import com.benchmark.jersey.repository.StatementCounter;
+import com.benchmark.jersey.repository.UnitOfWork;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for one class of operations.
+ * Its thread count is the number of connections the class may hold at
+ * once; its queue absorbs short bursts. When both are full the request
+ * is answered 503 straight away instead of waiting behind other classes.
+ * <p>
+ * With THREAD_MODE=virtual each task gets its own virtual thread instead,
+ * and the thread count becomes a fair semaphore the task parks on; the
+ * queue limit then bounds the tasks parked there.
+ * <p>
+ * With an EntityManagerFactory, each task runs in a {@link UnitOfWork}
+ * that commits before the response is written. Without one, repository
+ * calls manage their own transactions (bulk paths).
+ */
+public class Bulkhead implements BulkheadMXBean {
+
+    private final String name;
+    private final int queueCapacity;
+    private final EntityManagerFactory unitOfWork;
+    private final ThreadPoolExecutor executor;
+    private final VirtualThreads virtual;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+
+    /**
+     * @param virtualThreads a new virtual thread per task, or null for a
+     *                       fixed pool of platform threads
+     */
+    public Bulkhead(String name, int threads, int queueCapacity, EntityManagerFactory unitOfWork,
+                    ExecutorService virtualThreads) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.unitOfWork = unitOfWork;
+        if (virtualThreads != null) {
+            this.executor = null;
+            this.virtual = new VirtualThreads(virtualThreads, threads, queueCapacity);
+            return;
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "bulkhead-" + name + "-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.virtual = null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Run the action on this bulkhead and resume the suspended request
+     * with its response. Exceptions go through the usual exception mappers.
+     */
+    public void submit(AsyncResponse async, Supplier<Response> action) {
+        try {
+            execute(() -> {
+                try {
+                    StatementCounter.reset();
+                    Response response = unitOfWork != null
+                            ? UnitOfWork.run(unitOfWork, action)
+                            : action.get();
+                    long count = StatementCounter.current();
+                    statements.add(count);
+                    async.resume(Response.fromResponse(response)
+                            .header(StatementCounter.HEADER, count)
+                            .build());
+                } catch (Throwable e) {
+                    async.resume(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            async.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity("{\"error\": \"Too many concurrent " + name + " requests\"}")
+                    .build());
+        }
+    }
+
+    private void execute(Runnable task) {
+        if (virtual != null) {
+            virtual.execute(task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    public void shutdown() {
+        if (virtual != null) {
+            virtual.threads.shutdown();
+        } else {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public int getThreads() {
+        return virtual != null ? virtual.size : executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return virtual != null ? virtual.active() : executor.getActiveCount();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return virtual != null ? virtual.admitted.get() - virtual.active() : executor.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return virtual != null ? virtual.completed.sum() : executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Statements issued before the response was handed back (not those
+     * of a streamed body); divide by completed count for a per-request rate
+     */
+    @Override
+    public long getSqlStatements() {
+        return statements.sum();
+    }
+
+    /**
+     * A virtual thread per task, at most size of them past the semaphore
+     * and queueCapacity parked on it
+     */
+    private static final class VirtualThreads {
+
+        final ExecutorService threads;
+        final int size;
+        final int limit;
+        final Semaphore permits;
+        final AtomicInteger admitted = new AtomicInteger();
+        final LongAdder completed = new LongAdder();
+
+        VirtualThreads(ExecutorService threads, int size, int queueCapacity) {
+            this.threads = threads;
+            this.size = size;
+            this.limit = size + queueCapacity;
+            this.permits = new Semaphore(size, true);
+        }
+
+        void execute(Runnable task) {
+            if (admitted.incrementAndGet() > limit) {
+                admitted.decrementAndGet();
+                throw new RejectedExecutionException();
+            }
+            threads.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                    admitted.decrementAndGet();
+                    completed.increment();
+                }
+            });
+        }
+
+        int active() {
+            return size - permits.availablePermits();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.benchmark.jersey.config;
+
+/**
+ * JMX view of a {@link Bulkhead}, registered as
+ * com.benchmark:type=Bulkhead,name=&lt;reads|writes|bulk&gt;
+ */
+public interface BulkheadMXBean {
+
+    int getThreads();
+
+    int getActiveCount();
+
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    long getRejectedCount();
+
+    long getCompletedCount();
+
+    long getSqlStatements();
+}
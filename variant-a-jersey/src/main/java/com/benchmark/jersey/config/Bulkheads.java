@@ -0,0 +1,88 @@
+package com.benchmark.jersey.config;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * The three request bulkheads: cheap reads, single-row writes, and bulk
+ * work (batch inserts, imports, exports).
+ * <p>
+ * Thread counts split the connection pool (DB_POOL_SIZE) between the classes,
+ * so a burst of writes can never hold every connection while reads wait.
+ * Defaults are 60/30/10 percent; each size and queue limit can be set with
+ * BULKHEAD_{READ,WRITE,BULK}_{THREADS,QUEUE}.
+ * Reads and writes run each request in one unit of work; bulk work keeps
+ * its own per-chunk transactions. Threads are platform or virtual as
+ * THREAD_MODE selects (see ServerThreading).
+ */
+public class Bulkheads {
+
+    private final Bulkhead reads;
+    private final Bulkhead writes;
+    private final Bulkhead bulk;
+
+    public Bulkheads(EntityManagerFactory emf, ServerThreading threading) {
+        int pool = ServerThreading.dbPoolSize();
+        int bulkThreads = env("BULKHEAD_BULK_THREADS", Math.max(1, pool / 10));
+        int writeThreads = env("BULKHEAD_WRITE_THREADS", Math.max(1, pool * 3 / 10));
+        int readThreads = env("BULKHEAD_READ_THREADS", Math.max(1, pool - writeThreads - bulkThreads));
+
+        this.reads = register(new Bulkhead("reads", readThreads, env("BULKHEAD_READ_QUEUE", 1000), emf,
+                threading.bulkheadThreads()));
+        this.writes = register(new Bulkhead("writes", writeThreads, env("BULKHEAD_WRITE_QUEUE", 500), emf,
+                threading.bulkheadThreads()));
+        this.bulk = register(new Bulkhead("bulk", bulkThreads, env("BULKHEAD_BULK_QUEUE", 10), null,
+                threading.bulkheadThreads()));
+    }
+
+    public Bulkhead reads() {
+        return reads;
+    }
+
+    public Bulkhead writes() {
+        return writes;
+    }
+
+    public Bulkhead bulk() {
+        return bulk;
+    }
+
+    /**
+     * Short summary for the startup banner
+     */
+    public String describe() {
+        return String.format("reads %d threads/%d queued, writes %d/%d, bulk %d/%d",
+                reads.getThreads(), reads.getQueueCapacity(),
+                writes.getThreads(), writes.getQueueCapacity(),
+                bulk.getThreads(), bulk.getQueueCapacity());
+    }
+
+    public void shutdown() {
+        reads.shutdown();
+        writes.shutdown();
+        bulk.shutdown();
+    }
+
+    private static Bulkhead register(Bulkhead bulkhead) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.benchmark:type=Bulkhead,name=" + bulkhead.getName());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(bulkhead, name);
+        } catch (JMException e) {
+            throw new RuntimeException("Error registering bulkhead MBean", e);
+        }
+        return bulkhead;
+    }
+
+    private static int env(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+}
@@ -0,0 +1,400 @@
+package com.benchmark.jersey.config;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.NotSupportedException;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiated gzip/deflate response compression and request decompression.
+ * <p>
+ * The response filter picks a coding from Accept-Encoding for textual
+ * bodies; the writer interceptor then holds back the first COMPRESSION_MIN_SIZE
+ * bytes (default 1024) and only compresses once the body outgrows them,
+ * so small bodies, streamed or not, go out as they are. Compressed
+ * responses lose Content-Length and get a weak ETag (the bytes differ
+ * from the identity representation). Bytes in/out and the CPU time spent
+ * deflating are exported over JMX.
+ * <p>
+ * Request bodies sent with Content-Encoding: gzip or deflate are inflated
+ * before they reach a reader. COMPRESSION_ENABLED=false turns response
+ * compression off; COMPRESSION_LEVEL sets the deflate level (default 6).
+ */
+@Priority(Priorities.ENTITY_CODER)
+public class Compression implements ContainerResponseFilter, WriterInterceptor, ReaderInterceptor,
+        CompressionMXBean {
+
+    private static final String CODING_PROPERTY = Compression.class.getName() + ".coding";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder decompressed = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    public Compression(boolean enabled, int minSize, int level) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    /**
+     * Build from COMPRESSION_* variables and register the MBean
+     */
+    public static Compression fromEnv() {
+        Compression compression = new Compression(
+                Boolean.parseBoolean(System.getenv().getOrDefault("COMPRESSION_ENABLED", "true")),
+                Integer.parseInt(System.getenv().getOrDefault("COMPRESSION_MIN_SIZE", "1024")),
+                Integer.parseInt(System.getenv().getOrDefault("COMPRESSION_LEVEL", "6")));
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.benchmark:type=Compression");
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(compression, name);
+        } catch (JMException e) {
+            throw new RuntimeException("Error registering compression MBean", e);
+        }
+        return compression;
+    }
+
+    /**
+     * Short summary for the startup banner
+     */
+    public String describe() {
+        return enabled
+                ? String.format("gzip/deflate for bodies over %d bytes, level %d", minSize, level)
+                : "off";
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!enabled || !response.hasEntity() || !isCompressible(response.getMediaType())
+                || response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String coding = negotiate(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (coding != null) {
+            request.setProperty(CODING_PROPERTY, coding);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        String coding = (String) context.getProperty(CODING_PROPERTY);
+        if (coding == null) {
+            context.proceed();
+            return;
+        }
+        ThresholdOutputStream stream = new ThresholdOutputStream(context, coding);
+        context.setOutputStream(stream);
+        context.proceed();
+        stream.finish();
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.equalsIgnoreCase("identity")) {
+            return context.proceed();
+        }
+        InputStream body = context.getInputStream();
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> context.setInputStream(new GZIPInputStream(body));
+            case "deflate" -> context.setInputStream(new InflaterInputStream(body));
+            default -> throw new NotSupportedException("Unsupported Content-Encoding: " + encoding);
+        }
+        context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        decompressed.increment();
+        return context.proceed();
+    }
+
+    private static boolean isCompressible(MediaType type) {
+        if (type == null) {
+            return false;
+        }
+        String subtype = type.getSubtype();
+        return type.getType().equals("text")
+                || subtype.equals("json") || subtype.endsWith("+json") || subtype.equals("x-ndjson");
+    }
+
+    /**
+     * gzip if acceptable, else deflate, else null (identity)
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzip = 0;
+        float deflate = 0;
+        float any = 0;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            float q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> {
+                    gzip = q;
+                    gzipListed = true;
+                }
+                case "deflate" -> {
+                    deflate = q;
+                    deflateListed = true;
+                }
+                case "*" -> any = q;
+                default -> {
+                }
+            }
+        }
+        if (!gzipListed) {
+            gzip = any;
+        }
+        if (!deflateListed) {
+            deflate = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return "gzip";
+        }
+        return deflate > 0 ? "deflate" : null;
+    }
+
+    private static long cpuTime() {
+        long cpu = THREADS.getCurrentThreadCpuTime();
+        // Virtual threads report -1: fall back to wall time
+        return cpu >= 0 ? cpu : System.nanoTime();
+    }
+
+    /**
+     * Buffers up to minSize bytes; past that, switches the response to the
+     * negotiated coding and deflates everything through to the real stream
+     */
+    private final class ThresholdOutputStream extends OutputStream {
+
+        private final WriterInterceptorContext context;
+        private final String coding;
+        private final OutputStream target;
+        private byte[] buffer = new byte[minSize];
+        private int buffered;
+        private CountingOutputStream counter;
+        private Deflater deflateCoder;
+        private DeflaterOutputStream deflater;
+        private long written;
+        private boolean finished;
+
+        ThresholdOutputStream(WriterInterceptorContext context, String coding) {
+            this.context = context;
+            this.coding = coding;
+            this.target = context.getOutputStream();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (deflater == null && buffered + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, buffered, len);
+                buffered += len;
+                return;
+            }
+            if (deflater == null) {
+                start();
+            }
+            long begin = cpuTime();
+            deflater.write(b, off, len);
+            cpuNanos.add(cpuTime() - begin);
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (deflater != null) {
+                long begin = cpuTime();
+                deflater.flush();
+                cpuNanos.add(cpuTime() - begin);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        private void start() throws IOException {
+            MultivaluedMap<String, Object> headers = context.getHeaders();
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, coding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            Object etag = headers.getFirst(HttpHeaders.ETAG);
+            if (etag instanceof EntityTag tag && !tag.isWeak()) {
+                headers.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue(), true));
+            }
+
+            counter = new CountingOutputStream(target);
+            long begin = cpuTime();
+            if (coding.equals("gzip")) {
+                deflater = new GZIPOutputStream(counter, 8192, true) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            } else {
+                deflateCoder = new Deflater(level);
+                deflater = new DeflaterOutputStream(counter, deflateCoder, 8192, true);
+            }
+            deflater.write(buffer, 0, buffered);
+            cpuNanos.add(cpuTime() - begin);
+            written = buffered;
+            buffer = null;
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (deflater == null) {
+                target.write(buffer, 0, buffered);
+                skipped.increment();
+                return;
+            }
+            long begin = cpuTime();
+            // Writes the trailer and frees the native zlib state; the
+            // response stream itself stays open for Jersey to commit
+            deflater.close();
+            if (deflateCoder != null) {
+                deflateCoder.end();
+            }
+            cpuNanos.add(cpuTime() - begin);
+            compressed.increment();
+            bytesIn.add(written);
+            bytesOut.add(counter.count);
+        }
+    }
+
+    /**
+     * Counts the compressed bytes; never closes the response stream
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public int getMinSize() {
+        return minSize;
+    }
+
+    @Override
+    public long getCompressedResponses() {
+        return compressed.sum();
+    }
+
+    @Override
+    public long getSkippedResponses() {
+        return skipped.sum();
+    }
+
+    @Override
+    public long getDecompressedRequests() {
+        return decompressed.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getBytesSaved() {
+        return bytesIn.sum() - bytesOut.sum();
+    }
+
+    @Override
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+}
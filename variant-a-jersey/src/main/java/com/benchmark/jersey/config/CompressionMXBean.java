@@ -0,0 +1,26 @@
+package com.benchmark.jersey.config;
+
+/**
+ * JMX view of response {@link Compression}, registered as
+ * com.benchmark:type=Compression
+ */
+public interface CompressionMXBean {
+
+    boolean isEnabled();
+
+    int getMinSize();
+
+    long getCompressedResponses();
+
+    long getSkippedResponses();
+
+    long getDecompressedRequests();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getBytesSaved();
+
+    long getCpuNanos();
+}
@@ -0,0 +1,96 @@
+package com.benchmark.jersey.config;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+
+import java.util.StringJoiner;
+
+/**
+ * JSON, Smile and CBOR bodies of a resource are different representations,
+ * so they get different entity tags: the negotiated binary format is
+ * appended to the revision tag ("...+smile", "...+cbor"; JSON keeps the
+ * bare tag), and If-None-Match is narrowed to the tags of the format this
+ * request negotiates before a resource compares it. Responses of methods
+ * that negotiate carry Vary: Accept, so caches keep the formats apart.
+ */
+@Provider
+@Priority(Priorities.HEADER_DECORATOR)
+public class FormatVariants implements ContainerRequestFilter, ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String ifNoneMatch = request.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null || !negotiates(request)) {
+            return;
+        }
+        String own = ownTags(ifNoneMatch, suffix(request));
+        if (own == null) {
+            request.getHeaders().remove(HttpHeaders.IF_NONE_MATCH);
+        } else {
+            request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, own);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!negotiates(request)) {
+            return;
+        }
+        response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String suffix = suffix(request);
+        Object etag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+        if (!suffix.isEmpty() && etag instanceof EntityTag tag) {
+            response.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + suffix, tag.isWeak()));
+        }
+    }
+
+    /**
+     * The If-None-Match entries of the format with its suffix removed, or
+     * null if none is left; "*" matches every format
+     */
+    static String ownTags(String ifNoneMatch, String suffix) {
+        StringJoiner own = new StringJoiner(", ");
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                own.add(value);
+                continue;
+            }
+            boolean weak = value.startsWith("W/");
+            String opaque = (weak ? value.substring(2) : value).replace("\"", "");
+            int plus = opaque.lastIndexOf('+');
+            String format = plus < 0 ? "" : opaque.substring(plus);
+            if (format.equals(suffix)) {
+                own.add((weak ? "W/\"" : "\"") + opaque.substring(0, opaque.length() - suffix.length()) + "\"");
+            }
+        }
+        return own.length() > 0 ? own.toString() : null;
+    }
+
+    private static String suffix(ContainerRequestContext request) {
+        MediaType type = BinaryJacksonProvider.negotiate(request.getAcceptableMediaTypes());
+        if (type.equals(BinaryJacksonProvider.SMILE_TYPE)) {
+            return "+smile";
+        }
+        if (type.equals(BinaryJacksonProvider.CBOR_TYPE)) {
+            return "+cbor";
+        }
+        return "";
+    }
+
+    // Methods that list the binary types in @Produces (their class does)
+    private static boolean negotiates(ContainerRequestContext request) {
+        ResourceMethod method = ((ExtendedUriInfo) request.getUriInfo()).getMatchedResourceMethod();
+        return method != null && method.getProducedTypes().contains(BinaryJacksonProvider.SMILE_TYPE);
+    }
+}
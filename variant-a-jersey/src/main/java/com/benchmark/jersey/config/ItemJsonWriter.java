@@ -0,0 +1,303 @@
+package com.benchmark.jersey.config;
+
+import com.benchmark.jersey.dto.CategoryView;
+import com.benchmark.jersey.dto.ItemView;
+import com.benchmark.jersey.dto.PageResponse;
+import com.benchmark.jersey.entity.Category;
+import com.benchmark.jersey.entity.Item;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Hand-written JSON for the catalog types: pages, items and categories go
+ * straight through a JsonGenerator, field by field, with no reflective
+ * bean serializers. Output is byte-for-byte what the {@link JacksonConfig}
+ * mapper produces.
+ * <p>
+ * Timestamps (ISO_LOCAL_DATE_TIME) and prices are formatted into a
+ * per-call char buffer and handed to the generator as characters, so no
+ * String is built for them; the generator's own buffers are Jackson's
+ * recycled per-thread buffers. Anything else falls back to the mapper.
+ * Selected with JSON_WRITER=direct (default); JSON_WRITER=jackson keeps
+ * the reflective ObjectMapper path.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class ItemJsonWriter implements MessageBodyWriter<Object> {
+
+    private static final int SCRATCH_SIZE = 32;
+
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    public ItemJsonWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.factory = mapper.getFactory();
+    }
+
+    /**
+     * Whether JSON_WRITER selects this writer
+     */
+    public static boolean enabled() {
+        return !"jackson".equalsIgnoreCase(System.getenv().getOrDefault("JSON_WRITER", "direct"));
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == PageResponse.class || type == ItemView.class || type == Item.class
+                || type == CategoryView.class || type == Category.class;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        write(value, entityStream);
+    }
+
+    /**
+     * Write one value as JSON; the stream is flushed, not closed
+     */
+    public void write(Object value, OutputStream out) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeValue(generator, value, new char[SCRATCH_SIZE]);
+        }
+    }
+
+    private void writeValue(JsonGenerator g, Object value, char[] scratch) throws IOException {
+        if (value instanceof ItemView item) {
+            writeItem(g, item, scratch);
+        } else if (value instanceof Item item) {
+            writeItem(g, item, scratch);
+        } else if (value instanceof CategoryView category) {
+            writeCategory(g, category, scratch);
+        } else if (value instanceof Category category) {
+            writeCategory(g, category, scratch);
+        } else if (value instanceof PageResponse<?> page) {
+            writePage(g, page, scratch);
+        } else {
+            mapper.writeValue(g, value);
+        }
+    }
+
+    private void writePage(JsonGenerator g, PageResponse<?> page, char[] scratch) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName("content");
+        List<?> content = page.getContent();
+        if (content == null) {
+            g.writeNull();
+        } else {
+            g.writeStartArray();
+            for (int i = 0, n = content.size(); i < n; i++) {
+                Object element = content.get(i);
+                if (element == null) {
+                    g.writeNull();
+                } else {
+                    writeValue(g, element, scratch);
+                }
+            }
+            g.writeEndArray();
+        }
+        g.writeNumberField("page", page.getPage());
+        g.writeNumberField("size", page.getSize());
+        g.writeNumberField("totalElements", page.getTotalElements());
+        g.writeNumberField("totalPages", page.getTotalPages());
+        g.writeBooleanField("first", page.isFirst());
+        g.writeBooleanField("last", page.isLast());
+        if (page.getNextCursor() != null) {
+            g.writeStringField("nextCursor", page.getNextCursor());
+        }
+        g.writeEndObject();
+    }
+
+    private static void writeItem(JsonGenerator g, ItemView item, char[] scratch) throws IOException {
+        g.writeStartObject();
+        writeLong(g, "id", item.id());
+        writeString(g, "sku", item.sku());
+        writeString(g, "name", item.name());
+        writeDecimal(g, "price", item.price(), scratch);
+        writeInteger(g, "stock", item.stock());
+        g.writeFieldName("category");
+        if (item.category() == null) {
+            g.writeNull();
+        } else {
+            writeCategory(g, item.category(), scratch);
+        }
+        writeTimestamp(g, "updatedAt", item.updatedAt(), scratch);
+        g.writeEndObject();
+    }
+
+    private static void writeItem(JsonGenerator g, Item item, char[] scratch) throws IOException {
+        g.writeStartObject();
+        writeLong(g, "id", item.getId());
+        writeString(g, "sku", item.getSku());
+        writeString(g, "name", item.getName());
+        writeDecimal(g, "price", item.getPrice(), scratch);
+        writeInteger(g, "stock", item.getStock());
+        g.writeFieldName("category");
+        if (item.getCategory() == null) {
+            g.writeNull();
+        } else {
+            writeCategory(g, item.getCategory(), scratch);
+        }
+        writeTimestamp(g, "updatedAt", item.getUpdatedAt(), scratch);
+        g.writeEndObject();
+    }
+
+    private static void writeCategory(JsonGenerator g, CategoryView category, char[] scratch) throws IOException {
+        g.writeStartObject();
+        writeLong(g, "id", category.id());
+        writeString(g, "code", category.code());
+        writeString(g, "name", category.name());
+        writeTimestamp(g, "updatedAt", category.updatedAt(), scratch);
+        g.writeEndObject();
+    }
+
+    private static void writeCategory(JsonGenerator g, Category category, char[] scratch) throws IOException {
+        g.writeStartObject();
+        writeLong(g, "id", category.getId());
+        writeString(g, "code", category.getCode());
+        writeString(g, "name", category.getName());
+        writeTimestamp(g, "updatedAt", category.getUpdatedAt(), scratch);
+        g.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator g, String field, Long value) throws IOException {
+        g.writeFieldName(field);
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value.longValue());
+        }
+    }
+
+    private static void writeInteger(JsonGenerator g, String field, Integer value) throws IOException {
+        g.writeFieldName(field);
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value.intValue());
+        }
+    }
+
+    private static void writeString(JsonGenerator g, String field, String value) throws IOException {
+        g.writeFieldName(field);
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeString(value);
+        }
+    }
+
+    /**
+     * Same text as BigDecimal.toString for scales 0..6 (always plain
+     * there); other values take the generator's own path
+     */
+    static void writeDecimal(JsonGenerator g, String field, BigDecimal value, char[] scratch) throws IOException {
+        g.writeFieldName(field);
+        if (value == null) {
+            g.writeNull();
+            return;
+        }
+        int scale = value.scale();
+        if (scale < 0 || scale > 6 || value.precision() > 18) {
+            g.writeNumber(value);
+            return;
+        }
+        long unscaled = value.unscaledValue().longValue();
+        int len = 0;
+        if (unscaled < 0) {
+            scratch[len++] = '-';
+            unscaled = -unscaled;
+        }
+        long divisor = POWERS_OF_TEN[scale];
+        len = appendLong(scratch, len, unscaled / divisor);
+        if (scale > 0) {
+            scratch[len++] = '.';
+            len = appendPadded(scratch, len, unscaled % divisor, scale);
+        }
+        g.writeNumber(scratch, 0, len);
+    }
+
+    /**
+     * ISO_LOCAL_DATE_TIME, as the JavaTimeModule writes it: seconds always
+     * present, fraction without trailing zeros
+     */
+    static void writeTimestamp(JsonGenerator g, String field, LocalDateTime value, char[] scratch) throws IOException {
+        g.writeFieldName(field);
+        if (value == null) {
+            g.writeNull();
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            g.writeString(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        int len = appendPadded(scratch, 0, year, 4);
+        scratch[len++] = '-';
+        len = appendPadded(scratch, len, value.getMonthValue(), 2);
+        scratch[len++] = '-';
+        len = appendPadded(scratch, len, value.getDayOfMonth(), 2);
+        scratch[len++] = 'T';
+        len = appendPadded(scratch, len, value.getHour(), 2);
+        scratch[len++] = ':';
+        len = appendPadded(scratch, len, value.getMinute(), 2);
+        scratch[len++] = ':';
+        len = appendPadded(scratch, len, value.getSecond(), 2);
+        int nanos = value.getNano();
+        if (nanos > 0) {
+            int digits = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            scratch[len++] = '.';
+            len = appendPadded(scratch, len, nanos, digits);
+        }
+        g.writeString(scratch, 0, len);
+    }
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private static int appendLong(char[] buf, int pos, long value) {
+        if (value == 0) {
+            buf[pos] = '0';
+            return pos + 1;
+        }
+        int end = pos;
+        for (long v = value; v > 0; v /= 10) {
+            end++;
+        }
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static int appendPadded(char[] buf, int pos, long value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
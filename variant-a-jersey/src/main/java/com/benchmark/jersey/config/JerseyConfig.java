@@ -1,9 +1,19 @@
 package com.benchmark.jersey.config;
 
 import com.benchmark.jersey.repository.CategoryRepository;
+import com.benchmark.jersey.repository.ExportRepository;
+import com.benchmark.jersey.repository.ImportRepository;
 import com.benchmark.jersey.repository.ItemRepository;
 import com.benchmark.jersey.service.CategoryService;
+import com.benchmark.jersey.service.CategoryTotals;
+import com.benchmark.jersey.service.ExportService;
+import com.benchmark.jersey.service.ImportService;
 import com.benchmark.jersey.service.ItemService;
+import com.benchmark.jersey.service.ItemStream;
+import com.benchmark.jersey.service.SearchIndex;
+import com.benchmark.jersey.service.SkuIndex;
+import com.benchmark.jersey.service.StockCombiner;
+import jakarta.inject.Singleton;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
@@ -16,54 +26,158 @@ import org.glassfish.jersey.server.ServerProperties;
  */
 public class JerseyConfig extends ResourceConfig {
 
-    public JerseyConfig() {
+    private final EntityManagerFactory emf = createEntityManagerFactory();
+    private final Bulkheads bulkheads;
+    private final Compression compression = Compression.fromEnv();
+    private final JacksonConfig jackson = new JacksonConfig();
+    private final boolean directJson = ItemJsonWriter.enabled();
+    private final BinaryJacksonProvider binary = new BinaryJacksonProvider(jackson.getContext(Object.class));
+
+    public JerseyConfig(ServerThreading threading) {
+        bulkheads = new Bulkheads(emf, threading);
+
         // Scan packages for resources
         packages("com.benchmark.jersey.resource");
 
         // Register Jackson for JSON
         register(JacksonFeature.class);
-        register(new JacksonConfig());
+        register(jackson);
+
+        // Items, categories and their pages bypass the reflective serializers
+        if (directJson) {
+            register(new ItemJsonWriter(jackson.getContext(Object.class)));
+        }
+
+        // Smile and CBOR for clients that ask for them, same DTOs and settings
+        register(binary);
+        // ...tagged per format, with Vary: Accept
+        register(FormatVariants.class);
 
         // Enable Bean Validation
         register(org.glassfish.jersey.server.validation.ValidationFeature.class);
 
+        // gzip/deflate responses above a size threshold, inflate gzip uploads
+        register(compression);
+
         // Disable WADL (not needed for benchmark)
         property(ServerProperties.WADL_FEATURE_DISABLE, true);
 
         // Register DI bindings
-        register(new DependencyBinder());
+        register(new DependencyBinder(emf, threading, bulkheads, binary));
+
+        // Load in-memory catalogs and start the item stream before serving traffic
+        register(new WarmupListener());
+    }
+
+    public Bulkheads getBulkheads() {
+        return bulkheads;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public String describeJson() {
+        return directJson ? "direct (JsonGenerator writer)" : "jackson (ObjectMapper)";
+    }
+
+    public String describePool() {
+        return (useHikari() ? "hikari" : "hibernate built-in") + " (" + ServerThreading.dbPoolSize() + " connections)";
+    }
+
+    /**
+     * Create EntityManagerFactory with environment overrides
+     */
+    private static EntityManagerFactory createEntityManagerFactory() {
+        java.util.Map<String, Object> props = new java.util.HashMap<>();
+        String url = System.getenv("SPRING_DATASOURCE_URL");
+        if (url != null)
+            props.put("jakarta.persistence.jdbc.url", url);
+
+        String user = System.getenv("SPRING_DATASOURCE_USERNAME");
+        if (user != null)
+            props.put("jakarta.persistence.jdbc.user", user);
+
+        String password = System.getenv("SPRING_DATASOURCE_PASSWORD");
+        if (password != null)
+            props.put("jakarta.persistence.jdbc.password", password);
+
+        // Pool size split between the bulkheads (see Bulkheads)
+        String poolSize = String.valueOf(ServerThreading.dbPoolSize());
+        if (useHikari()) {
+            props.put("hibernate.hikari.maximumPoolSize", poolSize);
+            props.put("hibernate.hikari.minimumIdle", "10");
+            props.put("hibernate.hikari.connectionTimeout", "30000");
+            props.put("hibernate.hikari.idleTimeout", "600000");
+            props.put("hibernate.hikari.poolName", "BenchmarkHikariCP");
+            // Pool gauges for the JMX exporter (com.zaxxer.hikari:type=Pool)
+            props.put("hibernate.hikari.registerMbeans", "true");
+            // pgjdbc: rewrite batched INSERTs into multi-row VALUES
+            props.put("hibernate.hikari.dataSource.reWriteBatchedInserts", "true");
+        } else {
+            props.put("hibernate.connection.pool_size", poolSize);
+        }
+
+        return Persistence.createEntityManagerFactory("benchmark-pu", props);
+    }
+
+    /**
+     * Connection pool: Hibernate's built-in pool (the default, as in every
+     * earlier benchmark run) or HikariCP with DB_POOL=hikari
+     */
+    public static boolean useHikari() {
+        return "hikari".equalsIgnoreCase(System.getenv().getOrDefault("DB_POOL", "builtin"));
     }
 
     /**
      * HK2 Dependency Injection configuration
      */
     private static class DependencyBinder extends AbstractBinder {
+        private final EntityManagerFactory emf;
+        private final ServerThreading threading;
+        private final Bulkheads bulkheads;
+        private final BinaryJacksonProvider binary;
+
+        DependencyBinder(EntityManagerFactory emf, ServerThreading threading, Bulkheads bulkheads,
+                BinaryJacksonProvider binary) {
+            this.emf = emf;
+            this.threading = threading;
+            this.bulkheads = bulkheads;
+            this.binary = binary;
+        }
+
         @Override
         protected void configure() {
-            // Create EntityManagerFactory with environment overrides
-            java.util.Map<String, Object> props = new java.util.HashMap<>();
-            String url = System.getenv("SPRING_DATASOURCE_URL");
-            if (url != null)
-                props.put("jakarta.persistence.jdbc.url", url);
+            bind(emf).to(EntityManagerFactory.class);
 
-            String user = System.getenv("SPRING_DATASOURCE_USERNAME");
-            if (user != null)
-                props.put("jakarta.persistence.jdbc.user", user);
+            // THREAD_MODE, for services that start threads of their own
+            bind(threading).to(ServerThreading.class);
 
-            String password = System.getenv("SPRING_DATASOURCE_PASSWORD");
-            if (password != null)
-                props.put("jakarta.persistence.jdbc.password", password);
+            // Per-operation-class executors shared by all resources
+            bind(bulkheads).to(Bulkheads.class);
 
-            EntityManagerFactory emf = Persistence.createEntityManagerFactory("benchmark-pu", props);
-            bind(emf).to(EntityManagerFactory.class);
+            // Smile/CBOR mappers for resources that write generators themselves
+            bind(binary).to(BinaryJacksonProvider.class);
 
             // Bind repositories
             bindAsContract(CategoryRepository.class);
             bindAsContract(ItemRepository.class);
+            bindAsContract(ImportRepository.class);
+            bindAsContract(ExportRepository.class);
 
-            // Bind services
-            bindAsContract(CategoryService.class);
+            // Bind services (CategoryService holds the shared in-memory catalog,
+            // StockCombiner the hot-SKU windows, SkuIndex the SKU -> id map,
+            // SearchIndex the trigram index, CategoryTotals the per-category stats,
+            // ItemStream the LISTEN connection and SSE subscribers)
+            bindAsContract(CategoryService.class).in(Singleton.class);
             bindAsContract(ItemService.class);
+            bindAsContract(StockCombiner.class).in(Singleton.class);
+            bindAsContract(SkuIndex.class).in(Singleton.class);
+            bindAsContract(SearchIndex.class).in(Singleton.class);
+            bindAsContract(CategoryTotals.class).in(Singleton.class);
+            bindAsContract(ItemStream.class).in(Singleton.class);
+            bindAsContract(ImportService.class);
+            bindAsContract(ExportService.class);
         }
     }
 }
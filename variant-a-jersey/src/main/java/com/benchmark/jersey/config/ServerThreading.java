@@ -0,0 +1,124 @@
+package com.benchmark.jersey.config;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Worker thread model of the Grizzly server and the bulkheads, selected
+ * with THREAD_MODE.
+ * <ul>
+ *   <li>platform (default): Grizzly's fixed worker pool, and a fixed
+ *       thread pool per bulkhead</li>
+ *   <li>virtual: one virtual thread per request (Java 21+), and one per
+ *       bulkhead task, gated by a fair semaphore of the bulkhead's size so
+ *       that waiting for a connection is a cheap park instead of a pool
+ *       timeout</li>
+ * </ul>
+ * Request threads only suspend the response and hand the work to a
+ * bulkhead, so the bulkheads are where database work actually runs.
+ * The build targets Java 17, so virtual threads are looked up reflectively;
+ * on an older runtime both fall back to platform threads.
+ */
+public final class ServerThreading {
+
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    private static final int DEFAULT_DB_POOL_SIZE = 20;
+
+    private final Mode mode;
+    private String description;
+
+    private ServerThreading(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Read THREAD_MODE=platform|virtual from the environment
+     */
+    public static ServerThreading fromEnv() {
+        String value = System.getenv().getOrDefault("THREAD_MODE", "platform");
+        Mode mode;
+        try {
+            mode = Mode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("THREAD_MODE must be platform or virtual, got: " + value);
+        }
+        if (mode == Mode.VIRTUAL && newVirtualThreadPerTaskExecutor() == null) {
+            System.err.println("THREAD_MODE=virtual needs Java 21+, running on "
+                    + Runtime.version().feature() + "; using platform threads");
+            mode = Mode.PLATFORM;
+        }
+        return new ServerThreading(mode);
+    }
+
+    /**
+     * Connection pool size (DB_POOL_SIZE, default 20), whichever pool
+     * DB_POOL selects
+     */
+    public static int dbPoolSize() {
+        return Integer.parseInt(System.getenv().getOrDefault("DB_POOL_SIZE", String.valueOf(DEFAULT_DB_POOL_SIZE)));
+    }
+
+    /**
+     * Install the worker pool on every listener. Must run before server.start().
+     */
+    public void apply(HttpServer server) {
+        if (mode == Mode.VIRTUAL) {
+            ExecutorService workers = newVirtualThreadPerTaskExecutor();
+            for (NetworkListener listener : server.getListeners()) {
+                listener.getTransport().setWorkerThreadPool(workers);
+            }
+            description = "virtual (thread per request and per bulkhead task, "
+                    + dbPoolSize() + " concurrent = DB pool size)";
+            return;
+        }
+
+        int maxThreads = 0;
+        for (NetworkListener listener : server.getListeners()) {
+            ThreadPoolConfig pool = listener.getTransport().getWorkerThreadPoolConfig();
+            if (pool != null) {
+                maxThreads += pool.getMaxPoolSize();
+            }
+        }
+        description = "platform (Grizzly worker pool, " + maxThreads + " threads)";
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Executor for a bulkhead: a new virtual thread per task, or null in
+     * platform mode
+     */
+    ExecutorService bulkheadThreads() {
+        return mode == Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    /**
+     * Executor for writes that may block on a slow client: a new virtual
+     * thread per task, or null in platform mode
+     */
+    public ExecutorService writerThreads() {
+        return mode == Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    /**
+     * Human-readable summary for the startup banner
+     */
+    public String describe() {
+        return description != null ? description : mode.name().toLowerCase();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
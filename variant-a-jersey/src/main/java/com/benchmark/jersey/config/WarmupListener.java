@@ -0,0 +1,33 @@
+package com.benchmark.jersey.config;
+
+import com.benchmark.jersey.service.CategoryService;
+import com.benchmark.jersey.service.CategoryTotals;
+import com.benchmark.jersey.service.ItemStream;
+import com.benchmark.jersey.service.SearchIndex;
+import com.benchmark.jersey.service.SkuIndex;
+import org.glassfish.jersey.internal.inject.InjectionManager;
+import org.glassfish.jersey.server.spi.AbstractContainerLifecycleListener;
+import org.glassfish.jersey.server.spi.Container;
+
+/**
+ * Loads in-memory catalogs once the container is up, so the first
+ * requests do not pay for the warm-up, and runs the item stream's
+ * listener for the container's lifetime
+ */
+public class WarmupListener extends AbstractContainerLifecycleListener {
+
+    @Override
+    public void onStartup(Container container) {
+        InjectionManager injectionManager = container.getApplicationHandler().getInjectionManager();
+        injectionManager.getInstance(CategoryService.class).loadCatalog();
+        injectionManager.getInstance(SkuIndex.class).load();
+        injectionManager.getInstance(SearchIndex.class).load();
+        injectionManager.getInstance(CategoryTotals.class).load();
+        injectionManager.getInstance(ItemStream.class).start();
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        container.getApplicationHandler().getInjectionManager().getInstance(ItemStream.class).stop();
+    }
+}
@@ -0,0 +1,99 @@
+package com.benchmark.jersey.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk creation request.
+ * ids is aligned with the request array (null where the row failed).
+ */
+public class BulkResult {
+
+    private int received;
+    private int created;
+    private List<Long> ids = new ArrayList<>();
+    private List<RowError> errors = new ArrayList<>();
+
+    public BulkResult() {
+    }
+
+    public BulkResult(int received) {
+        this.received = received;
+        for (int i = 0; i < received; i++) {
+            ids.add(null);
+        }
+    }
+
+    public void succeeded(int index, Long id) {
+        ids.set(index, id);
+        created++;
+    }
+
+    public void failed(int index, String sku, String error) {
+        errors.add(new RowError(index, sku, error));
+    }
+
+    // Getters and Setters
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return errors.size();
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Error for a single request row
+     */
+    public static class RowError {
+        private int index;
+        private String sku;
+        private String error;
+
+        public RowError() {
+        }
+
+        public RowError(int index, String sku, String error) {
+            this.index = index;
+            this.sku = sku;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getSku() { return sku; }
+        public void setSku(String sku) { this.sku = sku; }
+
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+}
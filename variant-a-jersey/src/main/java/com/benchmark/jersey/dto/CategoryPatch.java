@@ -0,0 +1,31 @@
+package com.benchmark.jersey.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Parsed merge patch for a category; a null component is left unchanged
+ */
+public record CategoryPatch(String code, String name) {
+
+    public static CategoryPatch from(JsonNode patch) {
+        MergePatch.requireObject(patch);
+        String code = null;
+        String name = null;
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            switch (field.getKey()) {
+                case "code" -> code = MergePatch.text("code", field.getValue(), 32);
+                case "name" -> name = MergePatch.text("name", field.getValue(), 128);
+                default -> throw MergePatch.unknown(field.getKey());
+            }
+        }
+        return new CategoryPatch(code, name);
+    }
+
+    public boolean isEmpty() {
+        return code == null && name == null;
+    }
+}
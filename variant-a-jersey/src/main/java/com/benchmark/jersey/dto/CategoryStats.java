@@ -0,0 +1,13 @@
+package com.benchmark.jersey.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Item statistics of one category (or of the whole catalog when
+ * categoryId is null). Prices are null while there are no items;
+ * lastUpdated is the latest item change seen, deletes included.
+ */
+public record CategoryStats(Long categoryId, long itemCount, long totalStock, BigDecimal minPrice,
+                            BigDecimal avgPrice, BigDecimal maxPrice, LocalDateTime lastUpdated) {
+}
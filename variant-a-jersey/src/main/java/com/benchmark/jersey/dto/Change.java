@@ -0,0 +1,13 @@
+package com.benchmark.jersey.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a change feed: the row as it is now (upsert), or a
+ * tombstone (deleted, no value). changedAt is updated_at or deleted_at.
+ */
+public record Change<T>(Long id, LocalDateTime changedAt, boolean deleted,
+                        @JsonInclude(JsonInclude.Include.NON_NULL) T value) {
+}
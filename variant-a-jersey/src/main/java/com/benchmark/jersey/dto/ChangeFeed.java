@@ -0,0 +1,28 @@
+package com.benchmark.jersey.dto;
+
+import java.util.List;
+
+/**
+ * Page of a change feed in (changedAt, id) order. next resumes after the
+ * last change (or repeats the request's token when there was none), so
+ * clients poll with it; hasMore says whether to fetch again right away.
+ */
+public record ChangeFeed<T>(List<Change<T>> changes, String next, boolean hasMore) {
+
+    /** Largest page a client may ask for */
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * Page from limit + 1 fetched changes; the extra one only tells
+     * whether more are waiting
+     */
+    public static <T> ChangeFeed<T> of(List<Change<T>> fetched, int limit, ChangeToken since) {
+        List<Change<T>> changes = fetched.size() > limit ? fetched.subList(0, limit) : fetched;
+        ChangeToken next = since;
+        if (!changes.isEmpty()) {
+            Change<T> last = changes.get(changes.size() - 1);
+            next = new ChangeToken(last.changedAt(), last.id());
+        }
+        return new ChangeFeed<>(changes, next.encode(), fetched.size() > limit);
+    }
+}
@@ -0,0 +1,51 @@
+package com.benchmark.jersey.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque change feed continuation token: the (changedAt, id) of the last
+ * change a client has seen, encoded as "epochMicros:id" like
+ * {@link Cursor}. Feeds resume strictly after it.
+ */
+public record ChangeToken(LocalDateTime changedAt, long id) {
+
+    /** Before every change: a feed read from here is a full sync */
+    public static final ChangeToken START = new ChangeToken(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+    /**
+     * Encode into a URL-safe token
+     */
+    public String encode() {
+        long micros = changedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + changedAt.getNano() / 1_000;
+        byte[] raw = (micros + ":" + id).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}; null means {@link #START}
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static ChangeToken decode(String token) {
+        if (token == null) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int colon = raw.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Invalid token");
+            }
+            long micros = Long.parseLong(raw.substring(0, colon));
+            LocalDateTime changedAt = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                    (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+            return new ChangeToken(changedAt, Long.parseLong(raw.substring(colon + 1)));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid token", e);
+        }
+    }
+}
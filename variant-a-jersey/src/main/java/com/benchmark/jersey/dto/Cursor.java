@@ -0,0 +1,42 @@
+package com.benchmark.jersey.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination token.
+ * Encodes the last id seen by the client so the next page can be
+ * fetched with WHERE id > :lastId instead of an OFFSET scan.
+ */
+public final class Cursor {
+
+    private static final String PREFIX = "id:";
+
+    private Cursor() {
+    }
+
+    /**
+     * Encode the last id of a page into a URL-safe token
+     */
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode(long)}
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static long decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
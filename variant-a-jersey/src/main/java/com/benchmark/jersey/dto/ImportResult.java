@@ -0,0 +1,107 @@
+package com.benchmark.jersey.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import.
+ * errors holds at most the first MAX_REPORTED_ERRORS rejected rows;
+ * rejected always carries the full count.
+ */
+public class ImportResult {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long received;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private long elapsedMs;
+    private long rowsPerSecond;
+    private List<RowError> errors = new ArrayList<>();
+
+    public ImportResult() {
+    }
+
+    public void addError(long line, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, error));
+        }
+    }
+
+    // Getters and Setters
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+        this.rowsPerSecond = elapsedMs > 0 ? received * 1000 / elapsedMs : received;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Rejected input row (1-based data line, header excluded)
+     */
+    public static class RowError {
+        private long line;
+        private String error;
+
+        public RowError() {
+        }
+
+        public RowError(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() { return line; }
+        public void setLine(long line) { this.line = line; }
+
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+}
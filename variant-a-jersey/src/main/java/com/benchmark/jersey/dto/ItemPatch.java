@@ -0,0 +1,44 @@
+package com.benchmark.jersey.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Parsed merge patch for an item; a null component is left unchanged
+ */
+public record ItemPatch(String sku, String name, BigDecimal price, Integer stock, Long categoryId) {
+
+    // NUMERIC(10,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    public static ItemPatch from(JsonNode patch) {
+        MergePatch.requireObject(patch);
+        String sku = null;
+        String name = null;
+        BigDecimal price = null;
+        Integer stock = null;
+        Long categoryId = null;
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            switch (field.getKey()) {
+                case "sku" -> sku = MergePatch.text("sku", field.getValue(), 64);
+                case "name" -> name = MergePatch.text("name", field.getValue(), 128);
+                case "price" -> price = MergePatch.decimal("price", field.getValue());
+                case "stock" -> stock = MergePatch.count("stock", field.getValue());
+                case "categoryId" -> categoryId = MergePatch.id("categoryId", field.getValue());
+                default -> throw MergePatch.unknown(field.getKey());
+            }
+        }
+        if (price != null && price.compareTo(MAX_PRICE) > 0) {
+            throw new IllegalArgumentException("price must be at most " + MAX_PRICE);
+        }
+        return new ItemPatch(sku, name, price, stock, categoryId);
+    }
+
+    public boolean isEmpty() {
+        return sku == null && name == null && price == null && stock == null && categoryId == null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.benchmark.jersey.dto;
+
+import com.benchmark.jersey.entity.Item;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat item row as kept by the search index and returned as a search
+ * hit (category by id only; follow /items/{id} for the full item)
+ */
+public record ItemSummary(Long id, String sku, String name, BigDecimal price, int stock, Long categoryId) {
+
+    /**
+     * Copy a saved entity (reads only the category id, no proxy load)
+     */
+    public static ItemSummary of(Item item) {
+        return new ItemSummary(item.getId(), item.getSku(), item.getName(), item.getPrice(), item.getStock(),
+                item.getCategory().getId());
+    }
+
+    public static ItemSummary of(ItemView view) {
+        return new ItemSummary(view.id(), view.sku(), view.name(), view.price(), view.stock(),
+                view.category().id());
+    }
+}
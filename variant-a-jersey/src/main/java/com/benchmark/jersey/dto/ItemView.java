@@ -0,0 +1,34 @@
+package com.benchmark.jersey.dto;
+
+import com.benchmark.jersey.entity.Item;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only item projection for list and get endpoints; serializes
+ * exactly like {@link Item}. Filled by JPQL constructor expressions, so
+ * rows never enter the persistence context (no snapshot, no callbacks,
+ * no Category proxy).
+ */
+public record ItemView(Long id, String sku, String name, BigDecimal price, Integer stock,
+                       CategoryView category, LocalDateTime updatedAt) {
+
+    /**
+     * Flat constructor for JPQL: SELECT new ItemView(i.id, ..., c.id, c.code, c.name, c.updatedAt, i.updatedAt)
+     */
+    public ItemView(Long id, String sku, String name, BigDecimal price, Integer stock,
+                    Long categoryId, String categoryCode, String categoryName, LocalDateTime categoryUpdatedAt,
+                    LocalDateTime updatedAt) {
+        this(id, sku, name, price, stock,
+                new CategoryView(categoryId, categoryCode, categoryName, categoryUpdatedAt), updatedAt);
+    }
+
+    /**
+     * Copy a loaded entity (initializes its category)
+     */
+    public static ItemView of(Item item) {
+        return new ItemView(item.getId(), item.getSku(), item.getName(), item.getPrice(), item.getStock(),
+                CategoryView.of(item.getCategory()), item.getUpdatedAt());
+    }
+}
@@ -1,5 +1,7 @@
 package com.benchmark.jersey.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
@@ -15,6 +17,9 @@ public class PageResponse<T> {
     private boolean first;
     private boolean last;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     public PageResponse() {
     }
 
@@ -28,6 +33,20 @@ public class PageResponse<T> {
         this.last = page >= totalPages - 1;
     }
 
+    /**
+     * Keyset (cursor) page: no COUNT is run, so totalElements and
+     * totalPages are reported as -1
+     */
+    public PageResponse(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.totalElements = -1;
+        this.totalPages = -1;
+        this.first = false;
+        this.last = nextCursor == null;
+        this.nextCursor = nextCursor;
+    }
+
     // Getters and Setters
     public List<T> getContent() {
         return content;
@@ -84,4 +103,12 @@ public class PageResponse<T> {
     public void setLast(boolean last) {
         this.last = last;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,8 @@
+package com.benchmark.jersey.dto;
+
+/**
+ * Row after a merge patch, and whether any column actually changed
+ * (an unchanged row is not rewritten and keeps its updated_at)
+ */
+public record PatchResult<T>(T value, boolean changed) {
+}
@@ -0,0 +1,64 @@
+package com.benchmark.jersey.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Strong validator for a resource or a filtered collection: the newest
+ * updated_at its representation depends on, plus its row count. An
+ * insert or update moves the timestamp, a delete changes the count.
+ */
+public record Revision(LocalDateTime lastModified, long count) {
+
+    /**
+     * Revision from the timestamps a representation embeds (nulls ignored)
+     */
+    public static Revision of(long count, LocalDateTime... timestamps) {
+        LocalDateTime latest = null;
+        for (LocalDateTime timestamp : timestamps) {
+            if (timestamp != null && (latest == null || timestamp.isAfter(latest))) {
+                latest = timestamp;
+            }
+        }
+        return new Revision(latest, count);
+    }
+
+    /**
+     * Revision of a single item; it embeds its category
+     */
+    public static Revision of(ItemView item) {
+        return of(1, item.updatedAt(), item.category() != null ? item.category().updatedAt() : null);
+    }
+
+    /**
+     * Opaque entity tag value (unquoted)
+     */
+    public String tag() {
+        long micros = 0;
+        if (lastModified != null) {
+            micros = lastModified.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastModified.getNano() / 1_000;
+        }
+        return Long.toString(micros, 36) + "-" + Long.toString(count, 36);
+    }
+
+    /**
+     * Whether an If-None-Match header value matches this revision
+     * (weak comparison, as If-None-Match requires)
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String quoted = "\"" + tag() + "\"";
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.benchmark.jersey.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Item search response: the first hits by id, the total match count and
+ * facet counts. Category counts ignore the categoryId filter and price
+ * buckets ignore the price range, so each facet shows what picking
+ * another value would return; stock counts apply every filter.
+ */
+public record SearchResult(int total, List<ItemSummary> items, Facets facets) {
+
+    public record Facets(List<CategoryCount> categories, List<PriceBucket> prices, StockCount stock) {
+    }
+
+    public record CategoryCount(Long categoryId, int count) {
+    }
+
+    /**
+     * Prices in [min, max); max is null for the open-ended last bucket
+     */
+    public record PriceBucket(BigDecimal min, BigDecimal max, int count) {
+    }
+
+    public record StockCount(int inStock, int outOfStock) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.benchmark.jersey.dto;
+
+import java.util.List;
+
+/**
+ * Result of a multi-SKU lookup: items found (in request order) and the
+ * SKUs that matched nothing
+ */
+public record SkuLookup(List<ItemView> items, List<String> missing) {
+}
@@ -0,0 +1,51 @@
+package com.benchmark.jersey.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Body of POST /items/{id}/stock:adjust: add delta to the stock (negative
+ * to take some) unless the result would fall below floor (default 0)
+ */
+public record StockAdjustment(int delta, int floor) {
+
+    public static StockAdjustment from(JsonNode body) {
+        if (body == null || !body.isObject()) {
+            throw new IllegalArgumentException("Stock adjustment must be a JSON object");
+        }
+        Integer delta = null;
+        int floor = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> fields = body.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                case "delta" -> {
+                    if (!value.isIntegralNumber() || !value.canConvertToInt() || value.intValue() == 0) {
+                        throw new IllegalArgumentException("delta must be a non-zero integer");
+                    }
+                    delta = value.intValue();
+                }
+                case "floor" -> {
+                    if (!value.isIntegralNumber() || !value.canConvertToInt() || value.intValue() < 0) {
+                        throw new IllegalArgumentException("floor must be a non-negative integer");
+                    }
+                    floor = value.intValue();
+                }
+                default -> throw new IllegalArgumentException("Unknown field: " + field.getKey());
+            }
+        }
+        if (delta == null) {
+            throw new IllegalArgumentException("delta is required");
+        }
+        return new StockAdjustment(delta, floor);
+    }
+
+    /**
+     * Lowest current stock for which the delta keeps stock at or above the floor
+     */
+    public long required() {
+        return (long) floor - delta;
+    }
+}
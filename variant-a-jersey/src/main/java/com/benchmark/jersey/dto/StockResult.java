@@ -0,0 +1,25 @@
+package com.benchmark.jersey.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a stock adjustment, with the stock right after it (applied)
+ * or the stock that was too low (insufficient); an applied one also
+ * carries the updated_at it wrote
+ */
+public record StockResult(Outcome outcome, int stock, LocalDateTime updatedAt) {
+
+    public enum Outcome { APPLIED, INSUFFICIENT, NOT_FOUND }
+
+    public static StockResult applied(int stock, LocalDateTime updatedAt) {
+        return new StockResult(Outcome.APPLIED, stock, updatedAt);
+    }
+
+    public static StockResult insufficient(int stock) {
+        return new StockResult(Outcome.INSUFFICIENT, stock, null);
+    }
+
+    public static StockResult notFound() {
+        return new StockResult(Outcome.NOT_FOUND, 0, null);
+    }
+}
@@ -1,31 +1,49 @@
 package com.benchmark.jersey.entity;
 
+import com.benchmark.jersey.repository.ItemNotifications;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.ResultCheckStyle;
+import org.hibernate.annotations.SQLInsert;
+import org.hibernate.annotations.SQLUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
- * Item entity
+ * Item entity; its INSERT and UPDATE also send the item notification
  */
 @Entity
 @Table(name = "item")
+@SQLInsert(sql = ItemNotifications.INSERT, check = ResultCheckStyle.COUNT)
+@SQLUpdate(sql = ItemNotifications.UPDATE, check = ResultCheckStyle.COUNT)
 @NamedQueries({
     @NamedQuery(
         name = "Item.findByCategoryId",
-        query = "SELECT i FROM Item i WHERE i.category.id = :categoryId"
+        query = "SELECT i FROM Item i WHERE i.category.id = :categoryId ORDER BY i.id"
     ),
     @NamedQuery(
         name = "Item.findByCategoryIdWithJoin",
-        query = "SELECT i FROM Item i JOIN FETCH i.category WHERE i.category.id = :categoryId"
+        query = "SELECT i FROM Item i JOIN FETCH i.category WHERE i.category.id = :categoryId ORDER BY i.id"
+    ),
+    @NamedQuery(
+        name = "Item.findByCategoryIdAfter",
+        query = "SELECT i FROM Item i WHERE i.category.id = :categoryId AND i.id > :lastId ORDER BY i.id"
+    ),
+    @NamedQuery(
+        name = "Item.findByCategoryIdAfterWithJoin",
+        query = "SELECT i FROM Item i JOIN FETCH i.category WHERE i.category.id = :categoryId AND i.id > :lastId ORDER BY i.id"
     )
 })
 public class Item {
 
+    // Pooled sequence (increment 50, see schema.sql): ids are allocated
+    // without an INSERT, so Hibernate can JDBC-batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -56,10 +74,12 @@ public class Item {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Microseconds, as the column stores them: the entity then carries
+    // exactly the row's updated_at
     @PrePersist
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     // Constructors
@@ -1,16 +1,54 @@
 package com.benchmark.jersey.repository;
 
+import com.benchmark.jersey.dto.CategoryPatch;
+import com.benchmark.jersey.dto.CategoryView;
+import com.benchmark.jersey.dto.Change;
+import com.benchmark.jersey.dto.ChangeToken;
+import com.benchmark.jersey.dto.DeletePolicy;
+import com.benchmark.jersey.dto.PatchResult;
+import com.benchmark.jersey.dto.Revision;
 import com.benchmark.jersey.entity.Category;
 import jakarta.inject.Inject;
 import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * Repository for Category entity operations
+ * Repository for Category entity operations.
+ * Calls share the request's {@link UnitOfWork} when one is open.
  */
 public class CategoryRepository {
     
+    // Category row (patched or current), see PatchStatement
+    private static final String PATCH_SELECT =
+        "SELECT r.id, r.code, r.name, r.updated_at, %1$s AS changed FROM %2$s r";
+    
+    // Deletes leave a tombstone for the change feed, in the same statement
+    private static final String DELETE_ROW =
+        "WITH deleted AS (DELETE FROM category WHERE id = :id RETURNING id)"
+            + " INSERT INTO category_tombstone (id, deleted_at) SELECT id, now() FROM deleted"
+            + " ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at";
+    
+    // Deleted items are buried and notified in the same statement
+    private static final String DELETE_ITEMS =
+        "WITH deleted AS (DELETE FROM item WHERE category_id = :id RETURNING id, category_id),"
+            + " buried AS (INSERT INTO item_tombstone (id, deleted_at) SELECT id, now() FROM deleted"
+            + " ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at)"
+            + " SELECT count(" + ItemNotifications.NOTIFY_ROW + ") FROM deleted";
+    
+    // Moved items are notified in the same statement, which returns the
+    // updated_at they were given (null if none moved)
+    private static final String REASSIGN_ITEMS =
+        "WITH moved AS (UPDATE item SET category_id = :target, updated_at = now()"
+            + " WHERE category_id = :id RETURNING id, category_id, updated_at)"
+            + " SELECT count(" + ItemNotifications.NOTIFY_ROW + ") AS moved, max(updated_at) AS moved_at FROM moved";
+    
+    private static final String CHANGES = ChangeStatement.sql("category", "code", "name");
+    
     @Inject
     private EntityManagerFactory emf;
     
@@ -18,124 +56,231 @@ public class CategoryRepository {
      * Find all categories with pagination
      */
     public List<Category> findAll(int page, int size) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery("SELECT c FROM Category c ORDER BY c.id", Category.class)
+        return UnitOfWork.read(emf, em ->
+            em.createQuery("SELECT c FROM Category c ORDER BY c.id", Category.class)
                     .setFirstResult(page * size)
                     .setMaxResults(size)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+                    .getResultList());
+    }
+    
+    /**
+     * Find every category (catalog warm-up)
+     */
+    public List<Category> findAllUnpaged() {
+        return UnitOfWork.read(emf, em ->
+            em.createQuery("SELECT c FROM Category c ORDER BY c.id", Category.class)
+                    .getResultList());
+    }
+    
+    /**
+     * Find categories after the given id (keyset pagination)
+     */
+    public List<Category> findAfter(Long lastId, int limit) {
+        return UnitOfWork.read(emf, em ->
+            em.createQuery(
+                "SELECT c FROM Category c WHERE c.id > :lastId ORDER BY c.id", Category.class)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(limit)
+                    .getResultList());
     }
     
     /**
      * Count total categories
      */
     public long count() {
-        EntityManager em = emf.createEntityManager();
-        try {
-            return em.createQuery("SELECT COUNT(c) FROM Category c", Long.class)
+        return UnitOfWork.read(emf, em ->
+            em.createQuery("SELECT COUNT(c) FROM Category c", Long.class)
+                    .getSingleResult());
+    }
+    
+    /**
+     * Validator of the category list
+     */
+    public Revision listRevision() {
+        return UnitOfWork.read(emf, em -> {
+            Object[] row = em.createQuery(
+                "SELECT MAX(c.updatedAt), COUNT(c) FROM Category c", Object[].class)
                     .getSingleResult();
-        } finally {
-            em.close();
-        }
+            return new Revision((LocalDateTime) row[0], (Long) row[1]);
+        });
     }
     
     /**
      * Find category by ID
      */
     public Optional<Category> findById(Long id) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            Category category = em.find(Category.class, id);
-            return Optional.ofNullable(category);
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(emf, em -> Optional.ofNullable(em.find(Category.class, id)));
     }
     
     /**
      * Find category by ID with items (eager fetch)
      */
     public Optional<Category> findByIdWithItems(Long id) {
-        EntityManager em = emf.createEntityManager();
-        try {
+        return UnitOfWork.read(emf, em -> {
             List<Category> results = em.createQuery(
                 "SELECT c FROM Category c LEFT JOIN FETCH c.items WHERE c.id = :id", 
                 Category.class)
                 .setParameter("id", id)
                 .getResultList();
             
-            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
-        } finally {
-            em.close();
-        }
+            return results.isEmpty() ? Optional.<Category>empty() : Optional.of(results.get(0));
+        });
     }
     
     /**
-     * Save (create or update) category
+     * Save (create or update) category.
+     * A category already managed by this request is flushed in place.
      */
     public Category save(Category category) {
-        EntityManager em = emf.createEntityManager();
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-            Category result;
-            if (category.getId() == null) {
-                em.persist(category);
-                result = category;
-            } else {
-                result = em.merge(category);
-            }
-            tx.commit();
-            return result;
+            return UnitOfWork.write(emf, em -> {
+                if (category.getId() == null) {
+                    em.persist(category);
+                    return category;
+                }
+                return em.contains(category) ? category : em.merge(category);
+            });
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error saving category", e);
-        } finally {
-            em.close();
         }
     }
     
     /**
-     * Delete category by ID
+     * Apply a merge patch in one statement, rewriting the row only if a
+     * value differs
+     *
+     * @return empty if the category does not exist
      */
-    public void delete(Long id) {
-        EntityManager em = emf.createEntityManager();
-        EntityTransaction tx = em.getTransaction();
+    @SuppressWarnings("unchecked")
+    public Optional<PatchResult<CategoryView>> patch(Long id, CategoryPatch patch) {
+        PatchStatement statement = new PatchStatement("category")
+                .set("code", patch.code())
+                .set("name", patch.name());
         try {
-            tx.begin();
-            Category category = em.find(Category.class, id);
-            if (category != null) {
-                em.remove(category);
-            }
-            tx.commit();
+            return UnitOfWork.write(emf, em -> {
+                NativeQuery<Object[]> query = em.unwrap(Session.class)
+                        .createNativeQuery(statement.sql(PATCH_SELECT))
+                        .addScalar("id", Long.class)
+                        .addScalar("code", String.class)
+                        .addScalar("name", String.class)
+                        .addScalar("updated_at", LocalDateTime.class)
+                        .addScalar("changed", Boolean.class);
+                return statement.bind(query, id).getResultStream()
+                        .findFirst()
+                        .map(row -> new PatchResult<>(new CategoryView((Long) row[0], (String) row[1],
+                                (String) row[2], (LocalDateTime) row[3]), (Boolean) row[4]));
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error patching category", e);
+        }
+    }
+    
+    /**
+     * Delete category by ID, handling its items with set-based statements
+     * in one transaction (never loaded, constant memory). The category row
+     * is locked first, which also blocks concurrent inserts into it.
+     *
+     * @param target destination category for REASSIGN
+     */
+    public DeletePolicy.Deletion delete(Long id, DeletePolicy policy, Long target) {
+        try {
+            return UnitOfWork.write(emf, em -> {
+                List<?> locked = em.createNativeQuery("SELECT id FROM category WHERE id = :id FOR UPDATE")
+                        .setParameter("id", id)
+                        .getResultList();
+                if (locked.isEmpty()) {
+                    return new DeletePolicy.Deletion(DeletePolicy.Outcome.NOT_FOUND, null);
+                }
+                LocalDateTime movedAt = null;
+                switch (policy) {
+                    case REJECT -> {
+                        Object hasItems = em.createNativeQuery(
+                            "SELECT EXISTS (SELECT 1 FROM item WHERE category_id = :id)")
+                                .setParameter("id", id)
+                                .getSingleResult();
+                        if (Boolean.TRUE.equals(hasItems)) {
+                            return new DeletePolicy.Deletion(DeletePolicy.Outcome.HAS_ITEMS, null);
+                        }
+                    }
+                    case CASCADE -> deleteItems(em, id);
+                    case REASSIGN -> {
+                        Object[] moved = (Object[]) em.unwrap(Session.class).createNativeQuery(REASSIGN_ITEMS)
+                                .addScalar("moved", Long.class)
+                                .addScalar("moved_at", LocalDateTime.class)
+                                .setParameter("target", target)
+                                .setParameter("id", id)
+                                .getSingleResult();
+                        movedAt = (LocalDateTime) moved[1];
+                    }
+                }
+                em.createNativeQuery(DELETE_ROW)
+                        .setParameter("id", id)
+                        .executeUpdate();
+                return new DeletePolicy.Deletion(DeletePolicy.Outcome.DELETED, movedAt);
+            });
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error deleting category", e);
-        } finally {
-            em.close();
         }
     }
     
+    /**
+     * Delete every item of a category (and record their tombstones and
+     * notifications) in one statement
+     *
+     * @return number of items deleted
+     */
+    public int deleteItems(Long id) {
+        try {
+            return UnitOfWork.write(emf, em -> deleteItems(em, id));
+        } catch (Exception e) {
+            throw new RuntimeException("Error deleting category items", e);
+        }
+    }
+    
+    private static int deleteItems(EntityManager em, Long id) {
+        Number deleted = (Number) em.createNativeQuery(DELETE_ITEMS)
+                .setParameter("id", id)
+                .getSingleResult();
+        return deleted.intValue();
+    }
+    
+    /**
+     * Changes after the token: categories and tombstones in (changedAt, id)
+     * order, see ChangeStatement
+     */
+    @SuppressWarnings("unchecked")
+    public List<Change<CategoryView>> findChanges(ChangeToken since, int limit) {
+        return UnitOfWork.read(emf, em -> {
+            LocalDateTime horizon = ChangeStatement.horizon(em);
+            NativeQuery<Object[]> query = em.unwrap(Session.class).createNativeQuery(CHANGES)
+                    .addScalar("id", Long.class)
+                    .addScalar("changed_at", LocalDateTime.class)
+                    .addScalar("deleted", Boolean.class)
+                    .addScalar("code", String.class)
+                    .addScalar("name", String.class);
+            List<Object[]> rows = ChangeStatement.bind(query, horizon, since, limit).getResultList();
+            List<Change<CategoryView>> changes = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                LocalDateTime changedAt = (LocalDateTime) row[1];
+                boolean deleted = (Boolean) row[2];
+                changes.add(new Change<>(id, changedAt, deleted,
+                        deleted ? null : new CategoryView(id, (String) row[3], (String) row[4], changedAt)));
+            }
+            return changes;
+        });
+    }
+    
     /**
      * Check if category exists
      */
     public boolean existsById(Long id) {
-        EntityManager em = emf.createEntityManager();
-        try {
+        return UnitOfWork.read(emf, em -> {
             Long count = em.createQuery(
                 "SELECT COUNT(c) FROM Category c WHERE c.id = :id", Long.class)
                 .setParameter("id", id)
                 .getSingleResult();
             return count > 0;
-        } finally {
-            em.close();
-        }
+        });
     }
 }
@@ -0,0 +1,73 @@
+package com.benchmark.jersey.repository;
+
+import com.benchmark.jersey.dto.ChangeToken;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+/**
+ * Builds a change feed page for a table and its tombstones:
+ * <pre>
+ * (SELECT id, updated_at AS changed_at, false AS deleted, cols FROM t
+ *  WHERE (updated_at, id) &gt; (:since, :sinceId) AND updated_at &lt; :horizon ORDER BY ... LIMIT :limit)
+ * UNION ALL
+ * (SELECT id, deleted_at, true, NULLs FROM t_tombstone WHERE ... same ...)
+ * ORDER BY changed_at, id LIMIT :limit
+ * </pre>
+ * Both branches walk an (updated_at, id) index from the token, so a page
+ * costs its own rows whatever the table size.
+ * <p>
+ * Rows are stamped before their transaction commits, so a row can become
+ * visible behind one already returned. The horizon holds the feed back to
+ * the start of the oldest transaction still open on the database (now()
+ * if there is none): anything stamped before it has committed or never
+ * will. It is read in a statement of its own, before the page query takes
+ * its snapshot, so a transaction committing in between is either seen by
+ * the page or holds the horizon back. This assumes the application and
+ * database clocks agree, as the entity callbacks already do for updated_at.
+ */
+final class ChangeStatement {
+
+    private static final String HORIZON =
+        "SELECT CAST(coalesce(min(xact_start), now()) AS timestamp) FROM pg_stat_activity"
+            + " WHERE datname = current_database() AND backend_type = 'client backend'"
+            + " AND xact_start IS NOT NULL AND pid <> pg_backend_pid()";
+
+    private ChangeStatement() {
+    }
+
+    /**
+     * @param columns row columns returned after id, changed_at and deleted
+     *                (NULL for tombstones)
+     */
+    static String sql(String table, String... columns) {
+        String values = String.join(", ", columns);
+        String nulls = String.join(", ", Collections.nCopies(columns.length, "NULL"));
+        return "SELECT * FROM ("
+            + "(SELECT id, updated_at AS changed_at, false AS deleted, " + values + " FROM " + table
+            + " WHERE (updated_at, id) > (:since, :sinceId) AND updated_at < :horizon"
+            + " ORDER BY updated_at, id LIMIT :limit)"
+            + " UNION ALL "
+            + "(SELECT id, deleted_at, true, " + nulls + " FROM " + table + "_tombstone"
+            + " WHERE (deleted_at, id) > (:since, :sinceId) AND deleted_at < :horizon"
+            + " ORDER BY deleted_at, id LIMIT :limit)"
+            + ") c ORDER BY changed_at, id LIMIT :limit";
+    }
+
+    /**
+     * Read the horizon; run it before the page query, outside a transaction
+     */
+    static LocalDateTime horizon(EntityManager em) {
+        return (LocalDateTime) em.createNativeQuery(HORIZON, LocalDateTime.class).getSingleResult();
+    }
+
+    static <Q extends Query> Q bind(Q query, LocalDateTime horizon, ChangeToken since, int limit) {
+        query.setParameter("horizon", horizon);
+        query.setParameter("since", since.changedAt());
+        query.setParameter("sinceId", since.id());
+        query.setParameter("limit", limit);
+        return query;
+    }
+}
@@ -0,0 +1,351 @@
+package com.benchmark.jersey.repository;
+
+import com.benchmark.jersey.dto.ImportResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Set-based bulk import through pgjdbc COPY.
+ * Rows are streamed into a TEMP staging table whose columns are all TEXT
+ * (so COPY never stops on a bad value), validated with a few UPDATEs and
+ * merged into the target table with INSERT ... ON CONFLICT. No entity is
+ * built and the whole import runs in one transaction.
+ */
+public class ImportRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportRepository.class);
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_ROWS = 100_000;
+    private static final long PROGRESS_BYTES = 32L * 1024 * 1024;
+
+    static final Spec ITEMS = new Spec(
+        "items",
+        "CREATE TEMP TABLE item_import ("
+            + " line BIGSERIAL, sku TEXT, name TEXT, price TEXT, stock TEXT,"
+            + " category_id TEXT, error TEXT) ON COMMIT DROP",
+        "COPY item_import (sku, name, price, stock, category_id) FROM STDIN WITH (FORMAT csv, HEADER true)",
+        "COPY item_import (line, sku, name, price, stock, category_id, error) FROM STDIN WITH (FORMAT csv)",
+        new String[] {"sku", "name", "price", "stock", "categoryId"},
+        new String[] {
+            "UPDATE item_import SET error = CASE"
+                + " WHEN sku IS NULL OR btrim(sku) = '' THEN 'sku is required'"
+                + " WHEN length(sku) > 64 THEN 'sku longer than 64 characters'"
+                + " WHEN name IS NULL OR btrim(name) = '' THEN 'name is required'"
+                + " WHEN length(name) > 128 THEN 'name longer than 128 characters'"
+                + " WHEN price IS NULL OR price !~ '^[0-9]{1,8}(\\.[0-9]{1,2})?$'"
+                + "   THEN 'price must be a non-negative amount with at most 2 decimals'"
+                + " WHEN stock IS NULL OR stock !~ '^[0-9]{1,9}$' THEN 'stock must be a non-negative integer'"
+                + " WHEN category_id IS NULL OR category_id !~ '^[0-9]{1,18}$' THEN 'categoryId must be an integer'"
+                + " END WHERE error IS NULL",
+            "UPDATE item_import s SET error = 'category not found'"
+                + " WHERE s.error IS NULL"
+                + " AND NOT EXISTS (SELECT 1 FROM category c WHERE c.id = s.category_id::bigint)",
+            "UPDATE item_import s SET error = 'duplicate sku, superseded by line ' || d.last_line"
+                + " FROM (SELECT sku, max(line) AS last_line FROM item_import WHERE error IS NULL"
+                + "       GROUP BY sku HAVING count(*) > 1) d"
+                + " WHERE s.error IS NULL AND s.sku = d.sku AND s.line < d.last_line"
+        },
+        "WITH merged AS ("
+            + " INSERT INTO item (sku, name, price, stock, category_id, updated_at)"
+            + " SELECT sku, name, price::numeric, stock::int, category_id::bigint, now()"
+            + " FROM item_import WHERE error IS NULL"
+            + " ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, price = EXCLUDED.price,"
+            + "   stock = EXCLUDED.stock, category_id = EXCLUDED.category_id, updated_at = EXCLUDED.updated_at"
+            + " RETURNING (xmax = 0) AS inserted)"
+            + " SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged",
+        "item_import"
+    );
+
+    static final Spec CATEGORIES = new Spec(
+        "categories",
+        "CREATE TEMP TABLE category_import ("
+            + " line BIGSERIAL, code TEXT, name TEXT, error TEXT) ON COMMIT DROP",
+        "COPY category_import (code, name) FROM STDIN WITH (FORMAT csv, HEADER true)",
+        "COPY category_import (line, code, name, error) FROM STDIN WITH (FORMAT csv)",
+        new String[] {"code", "name"},
+        new String[] {
+            "UPDATE category_import SET error = CASE"
+                + " WHEN code IS NULL OR btrim(code) = '' THEN 'code is required'"
+                + " WHEN length(code) > 32 THEN 'code longer than 32 characters'"
+                + " WHEN name IS NULL OR btrim(name) = '' THEN 'name is required'"
+                + " WHEN length(name) > 128 THEN 'name longer than 128 characters'"
+                + " END WHERE error IS NULL",
+            "UPDATE category_import s SET error = 'duplicate code, superseded by line ' || d.last_line"
+                + " FROM (SELECT code, max(line) AS last_line FROM category_import WHERE error IS NULL"
+                + "       GROUP BY code HAVING count(*) > 1) d"
+                + " WHERE s.error IS NULL AND s.code = d.code AND s.line < d.last_line"
+        },
+        "WITH merged AS ("
+            + " INSERT INTO category (code, name, updated_at)"
+            + " SELECT code, name, now() FROM category_import WHERE error IS NULL"
+            + " ON CONFLICT (code) DO UPDATE SET name = EXCLUDED.name, updated_at = EXCLUDED.updated_at"
+            + " RETURNING (xmax = 0) AS inserted)"
+            + " SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged",
+        "category_import"
+    );
+
+    @Inject
+    private EntityManagerFactory emf;
+
+    /**
+     * Import items from CSV (header row, then sku,name,price,stock,categoryId)
+     */
+    public ImportResult importItemsCsv(InputStream csv) {
+        return run(ITEMS, csv, false);
+    }
+
+    /**
+     * Import items from NDJSON (one {"sku","name","price","stock","categoryId"} object per line)
+     */
+    public ImportResult importItemsNdjson(InputStream ndjson) {
+        return run(ITEMS, ndjson, true);
+    }
+
+    /**
+     * Import categories from CSV (header row, then code,name)
+     */
+    public ImportResult importCategoriesCsv(InputStream csv) {
+        return run(CATEGORIES, csv, false);
+    }
+
+    /**
+     * Import categories from NDJSON (one {"code","name"} object per line)
+     */
+    public ImportResult importCategoriesNdjson(InputStream ndjson) {
+        return run(CATEGORIES, ndjson, true);
+    }
+
+    private ImportResult run(Spec spec, InputStream body, boolean ndjson) {
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            ImportResult result = em.unwrap(Session.class).doReturningWork(connection -> {
+                execute(connection, spec.stagingDdl);
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                long received;
+                try {
+                    received = ndjson
+                        ? copyNdjson(copyManager, spec, body)
+                        : copyManager.copyIn(spec.csvCopySql, new ProgressInputStream(body, spec.name), COPY_BUFFER_SIZE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return validateAndMerge(connection, spec, received);
+            });
+            tx.commit();
+            result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+            log.info("Imported {}: {} received, {} inserted, {} updated, {} rejected in {} ms",
+                    spec.name, result.getReceived(), result.getInserted(), result.getUpdated(),
+                    result.getRejected(), result.getElapsedMs());
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw new RuntimeException("Error importing " + spec.name, e);
+        } finally {
+            em.close();
+        }
+    }
+
+    private ImportResult validateAndMerge(Connection connection, Spec spec, long received) throws SQLException {
+        ImportResult result = new ImportResult();
+        result.setReceived(received);
+
+        for (String sql : spec.validationSql) {
+            execute(connection, sql);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT count(*) FROM " + spec.stagingTable + " WHERE error IS NOT NULL")) {
+                rs.next();
+                result.setRejected(rs.getLong(1));
+            }
+            if (result.getRejected() > 0) {
+                try (ResultSet rs = statement.executeQuery(
+                        "SELECT line, error FROM " + spec.stagingTable + " WHERE error IS NOT NULL"
+                        + " ORDER BY line LIMIT " + ImportResult.MAX_REPORTED_ERRORS)) {
+                    while (rs.next()) {
+                        result.addError(rs.getLong(1), rs.getString(2));
+                    }
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(spec.mergeSql)) {
+                rs.next();
+                result.setInserted(rs.getLong(1));
+                result.setUpdated(rs.getLong(2));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Convert NDJSON to CSV rows on the fly and feed them to COPY.
+     * Lines that are not JSON objects are staged with their error set, so
+     * they are reported like any other rejected row.
+     */
+    private long copyNdjson(CopyManager copyManager, Spec spec, InputStream body) throws SQLException, IOException {
+        CopyIn copyIn = copyManager.copyIn(spec.ndjsonCopySql);
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(body, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+            StringBuilder row = new StringBuilder(256);
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                row.setLength(0);
+                row.append(line);
+                String error = null;
+                JsonNode node = null;
+                try {
+                    node = JSON.readTree(text);
+                    if (!node.isObject()) {
+                        error = "line is not a JSON object";
+                    }
+                } catch (JsonProcessingException e) {
+                    error = "malformed JSON";
+                }
+                for (String field : spec.jsonFields) {
+                    row.append(',');
+                    if (error == null) {
+                        JsonNode value = node.get(field);
+                        if (value != null && !value.isNull()) {
+                            appendCsv(row, value.asText());
+                        }
+                    }
+                }
+                row.append(',');
+                if (error != null) {
+                    appendCsv(row, error);
+                }
+                row.append('\n');
+                byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                if (line % PROGRESS_ROWS == 0) {
+                    log.debug("Import {}: {} lines streamed", spec.name, line);
+                }
+            }
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void appendCsv(StringBuilder row, String value) {
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Static description of an import target
+     */
+    static final class Spec {
+        final String name;
+        final String stagingDdl;
+        final String csvCopySql;
+        final String ndjsonCopySql;
+        final String[] jsonFields;
+        final String[] validationSql;
+        final String mergeSql;
+        final String stagingTable;
+
+        Spec(String name, String stagingDdl, String csvCopySql, String ndjsonCopySql,
+             String[] jsonFields, String[] validationSql, String mergeSql, String stagingTable) {
+            this.name = name;
+            this.stagingDdl = stagingDdl;
+            this.csvCopySql = csvCopySql;
+            this.ndjsonCopySql = ndjsonCopySql;
+            this.jsonFields = jsonFields;
+            this.validationSql = validationSql;
+            this.mergeSql = mergeSql;
+            this.stagingTable = stagingTable;
+        }
+    }
+
+    /**
+     * Logs import progress by volume while COPY drains the request body
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        private final String name;
+        private long bytes;
+        private long nextReport = PROGRESS_BYTES;
+
+        ProgressInputStream(InputStream in, String name) {
+            super(in);
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(int n) {
+            bytes += n;
+            if (bytes >= nextReport) {
+                log.debug("Import {}: {} MiB streamed", name, bytes >> 20);
+                nextReport += PROGRESS_BYTES;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.benchmark.jersey.repository;
+
+/**
+ * Item change notifications: pg_notify on {@link #CHANNEL} with
+ * "item:&lt;id&gt;:&lt;categoryId&gt;", the category after the write (before
+ * it for deletes). Sent by the writing statement itself, never by a
+ * round trip of its own, so Postgres delivers them only if (and when) the
+ * transaction commits. The "item:&lt;id&gt;" prefix is what the Spring
+ * variant's near cache listens for on the same channel.
+ */
+public final class ItemNotifications {
+
+    public static final String CHANNEL = "catalog_changes";
+
+    /** Select-list expression over a row with id and category_id columns */
+    static final String NOTIFY_ROW =
+        "CAST(pg_notify('" + CHANNEL + "', 'item:' || id || ':' || category_id) AS text)";
+
+    // Hibernate binds item columns in this order (attributes by name, id last)
+    private static final String COLUMNS = "category_id, name, price, sku, stock, updated_at";
+
+    private static final String NOTIFIED_VALUES =
+        "(SELECT * FROM (VALUES (CAST(? AS bigint), CAST(? AS varchar), CAST(? AS numeric), CAST(? AS varchar),"
+            + " CAST(? AS integer), CAST(? AS timestamp), CAST(? AS bigint)))"
+            + " v(" + COLUMNS + ", id) WHERE " + NOTIFY_ROW + " IS NOT NULL) v";
+
+    /**
+     * Entity INSERT that notifies the row it writes. pgjdbc does not
+     * rewrite it into a multi-row INSERT; a JDBC batch of them still goes
+     * out in one round trip.
+     */
+    public static final String INSERT =
+        "INSERT INTO item (" + COLUMNS + ", id) SELECT * FROM " + NOTIFIED_VALUES;
+
+    /**
+     * Entity UPDATE that notifies the row it writes
+     */
+    public static final String UPDATE =
+        "UPDATE item SET category_id = v.category_id, name = v.name, price = v.price, sku = v.sku,"
+            + " stock = v.stock, updated_at = v.updated_at FROM " + NOTIFIED_VALUES
+            + " WHERE item.id = v.id";
+
+    private ItemNotifications() {
+    }
+
+    /**
+     * {@link #NOTIFY_ROW} over the row aliased {@code alias}
+     */
+    static String notifyRow(String alias) {
+        return "CAST(pg_notify('" + CHANNEL + "', 'item:' || " + alias + ".id || ':' || "
+            + alias + ".category_id) AS text)";
+    }
+}
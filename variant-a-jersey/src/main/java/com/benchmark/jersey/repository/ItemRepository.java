@@ -1,13 +1,39 @@
 package com.benchmark.jersey.repository;
 
+import com.benchmark.jersey.dto.CategoryView;
+import com.benchmark.jersey.dto.Change;
+import com.benchmark.jersey.dto.ChangeToken;
+import com.benchmark.jersey.dto.ItemPatch;
+import com.benchmark.jersey.dto.ItemSummary;
+import com.benchmark.jersey.dto.ItemView;
+import com.benchmark.jersey.dto.PatchResult;
+import com.benchmark.jersey.dto.Revision;
+import com.benchmark.jersey.dto.StockResult;
 import com.benchmark.jersey.entity.Item;
 import jakarta.inject.Inject;
 import jakarta.persistence.*;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
- * Repository for Item entity operations
+ * Repository for Item entity operations.
+ * Single-row calls share the request's {@link UnitOfWork} when one is
+ * open; scroll and saveAll manage their own EntityManager and transaction.
  */
 public class ItemRepository {
     
@@ -18,34 +44,293 @@ public class ItemRepository {
     private final boolean useJoinFetch = 
         Boolean.parseBoolean(System.getenv().getOrDefault("USE_JOIN_FETCH", "true"));
     
+    // Conditional stock change (stock + delta >= floor as stock >= floor - delta),
+    // notified in the same statement when applied
+    private static final String ADJUST_STOCK =
+        "WITH updated AS (UPDATE item SET stock = stock + :delta, updated_at = now()"
+            + " WHERE id = :id AND stock >= :required RETURNING id, stock, category_id, updated_at)"
+            + " SELECT stock, true AS applied, updated_at, " + ItemNotifications.NOTIFY_ROW + " FROM updated"
+            + " UNION ALL SELECT stock, false, NULL, NULL FROM item WHERE id = :id"
+            + " AND NOT EXISTS (SELECT 1 FROM updated)";
+    
+    // Rows per JDBC round trip (and per persistence-context clear) when scrolling
+    private static final int SCROLL_FETCH_SIZE = 200;
+    // Rows per JDBC round trip when streaming the in-memory indexes
+    private static final int INDEX_FETCH_SIZE = 5000;
+    
+    // JDBC batch size (and flush/clear interval) for bulk inserts
+    private static final int BULK_BATCH_SIZE = 500;
+    
+    // Page rows and category existence in one statement (totals come from
+    // CategoryTotals). The category row always yields a row and the page is
+    // LEFT JOINed onto it, so no row at all means the category does not
+    // exist and a row with a null item_id means an empty page.
+    private static final String PAGE_SELECT =
+        "SELECT p.id AS item_id, p.sku, p.name AS item_name, p.price, p.stock,"
+            + " p.updated_at AS item_updated_at, c.id AS category_id, c.code,"
+            + " c.name AS category_name, c.updated_at AS category_updated_at ";
+    
+    private static final String PAGE_BY_CATEGORY = PAGE_SELECT
+        + "FROM category c"
+        + " LEFT JOIN LATERAL (SELECT i.id, i.sku, i.name, i.price, i.stock, i.updated_at FROM item i"
+        + " WHERE i.category_id = c.id ORDER BY i.id LIMIT :limit OFFSET :offset) p ON true"
+        + " WHERE c.id = :categoryId ORDER BY p.id";
+    
+    private static final String PAGE_ALL = PAGE_SELECT
+        + "FROM (SELECT i.id, i.sku, i.name, i.price, i.stock, i.updated_at, i.category_id"
+        + " FROM item i ORDER BY i.id LIMIT :limit OFFSET :offset) p"
+        + " JOIN category c ON c.id = p.category_id ORDER BY p.id";
+    
+    // Seed of CategoryTotals: one aggregate pass over the item table
+    private static final String CATEGORY_TOTALS =
+        "SELECT category_id, count(*) AS items, sum(stock) AS stock, sum(price) AS price_sum,"
+            + " min(price) AS min_price, max(price) AS max_price, max(updated_at) AS last_updated"
+            + " FROM item GROUP BY category_id";
+    
+    // Validators for item lists: the newest updated_at among the items and
+    // the categories they embed, plus the item count. The counts visit
+    // every item (of the category), so these only run to answer an
+    // If-None-Match; other responses are tagged from CategoryTotals. The
+    // by-category form yields no row when the category does not exist.
+    private static final String REVISION_ALL =
+        "SELECT greatest((SELECT max(updated_at) FROM item), (SELECT max(updated_at) FROM category))"
+            + " AS last_modified, (SELECT count(*) FROM item) AS total";
+    
+    private static final String REVISION_BY_CATEGORY =
+        "SELECT greatest(c.updated_at, s.last_modified) AS last_modified, s.total FROM category c"
+            + " CROSS JOIN LATERAL (SELECT max(updated_at) AS last_modified, count(*) AS total"
+            + " FROM item WHERE category_id = c.id) s"
+            + " WHERE c.id = :categoryId";
+    
+    // Deleted items leave a tombstone for the change feed; deleted, buried
+    // and notified in one statement
+    private static final String DELETE_ROW =
+        "WITH deleted AS (DELETE FROM item WHERE id = :id RETURNING id, category_id),"
+            + " buried AS (INSERT INTO item_tombstone (id, deleted_at) SELECT id, now() FROM deleted"
+            + " ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at)"
+            + " SELECT count(" + ItemNotifications.NOTIFY_ROW + ") FROM deleted";
+    
+    private static final String CHANGES =
+        ChangeStatement.sql("item", "sku", "name", "price", "stock", "category_id");
+    
+    // Item row (patched or current) with its category, see PatchStatement;
+    // a rewritten row is notified in the same statement
+    private static final String PATCH_SELECT =
+        "SELECT r.id AS item_id, r.sku, r.name AS item_name, r.price, r.stock, r.updated_at AS item_updated_at,"
+            + " c.id AS category_id, c.code, c.name AS category_name, c.updated_at AS category_updated_at,"
+            + " %1$s AS changed, CASE WHEN %1$s THEN " + ItemNotifications.notifyRow("r") + " END AS notified"
+            + " FROM %2$s r JOIN category c ON c.id = r.category_id";
+    
+    // Projection reads: exactly the columns the JSON needs, straight into
+    // ItemView, never registered in the persistence context
+    private static final String VIEW_SELECT =
+        "SELECT new com.benchmark.jersey.dto.ItemView(i.id, i.sku, i.name, i.price, i.stock,"
+            + " c.id, c.code, c.name, c.updatedAt, i.updatedAt) FROM Item i JOIN i.category c ";
+    
+    /**
+     * Find a page of items, optionally by category (no COUNT, see
+     * CategoryTotals). With JOIN FETCH enabled this is a single statement;
+     * otherwise the existence check and page query (lazy categories) run
+     * separately as before.
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<List<ItemView>> findPage(Long categoryId, int page, int size) {
+        if (!useJoinFetch) {
+            return UnitOfWork.read(emf, em -> {
+                if (categoryId == null) {
+                    List<ItemView> items = toViews(em.createQuery("SELECT i FROM Item i ORDER BY i.id", Item.class)
+                            .setFirstResult(page * size)
+                            .setMaxResults(size)
+                            .getResultList());
+                    return Optional.of(items);
+                }
+                long categories = em.createQuery(
+                        "SELECT COUNT(c) FROM Category c WHERE c.id = :id", Long.class)
+                        .setParameter("id", categoryId)
+                        .getSingleResult();
+                if (categories == 0) {
+                    return Optional.<List<ItemView>>empty();
+                }
+                List<ItemView> items = toViews(em.createNamedQuery("Item.findByCategoryId", Item.class)
+                        .setParameter("categoryId", categoryId)
+                        .setFirstResult(page * size)
+                        .setMaxResults(size)
+                        .getResultList());
+                return Optional.of(items);
+            });
+        }
+        
+        List<Object[]> rows = UnitOfWork.read(emf, em -> {
+            NativeQuery<Object[]> query = pageQuery(em.unwrap(Session.class),
+                    categoryId != null ? PAGE_BY_CATEGORY : PAGE_ALL);
+            if (categoryId != null) {
+                query.setParameter("categoryId", categoryId);
+            }
+            return query.setParameter("limit", size)
+                    .setParameter("offset", (long) page * size)
+                    .getResultList();
+        });
+        if (rows.isEmpty()) {
+            return categoryId != null ? Optional.empty() : Optional.of(List.of());
+        }
+        
+        Map<Long, CategoryView> categories = new HashMap<>();
+        List<ItemView> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            CategoryView category = categories.computeIfAbsent((Long) row[6], id ->
+                    new CategoryView(id, (String) row[7], (String) row[8], (LocalDateTime) row[9]));
+            items.add(new ItemView((Long) row[0], (String) row[1], (String) row[2], (BigDecimal) row[3],
+                    (Integer) row[4], category, (LocalDateTime) row[5]));
+        }
+        return Optional.of(items);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static NativeQuery<Object[]> pageQuery(Session session, String sql) {
+        return session.createNativeQuery(sql)
+                .addScalar("item_id", Long.class)
+                .addScalar("sku", String.class)
+                .addScalar("item_name", String.class)
+                .addScalar("price", BigDecimal.class)
+                .addScalar("stock", Integer.class)
+                .addScalar("item_updated_at", LocalDateTime.class)
+                .addScalar("category_id", Long.class)
+                .addScalar("code", String.class)
+                .addScalar("category_name", String.class)
+                .addScalar("category_updated_at", LocalDateTime.class);
+    }
+    
+    /**
+     * Find items after the given id (keyset pagination)
+     */
+    public List<ItemView> findAfter(Long lastId, int limit) {
+        if (!useJoinFetch) {
+            return UnitOfWork.read(emf, em -> toViews(em.createQuery(
+                    "SELECT i FROM Item i WHERE i.id > :lastId ORDER BY i.id", Item.class)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(limit)
+                    .getResultList()));
+        }
+        return UnitOfWork.read(emf, em -> em.createQuery(
+                VIEW_SELECT + "WHERE i.id > :lastId ORDER BY i.id", ItemView.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+    
     /**
-     * Find all items with pagination
+     * Scroll a page of items, optionally filtered by category, handing
+     * each row to the consumer as it is read. The persistence context is
+     * cleared every fetch so memory stays flat whatever the page size.
      */
-    public List<Item> findAll(int page, int size) {
+    public void scroll(Long categoryId, int page, int size, Consumer<Item> consumer) {
         EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
         try {
-            String query = useJoinFetch 
-                ? "SELECT i FROM Item i JOIN FETCH i.category ORDER BY i.id"
-                : "SELECT i FROM Item i ORDER BY i.id";
-                
-            return em.createQuery(query, Item.class)
+            // Postgres only honours the fetch size (server-side cursor) inside a transaction
+            tx.begin();
+            String fetch = useJoinFetch ? "JOIN FETCH i.category " : "";
+            String where = categoryId != null ? "WHERE i.category.id = :categoryId " : "";
+            Query<Item> query = em.unwrap(Session.class)
+                    .createQuery("SELECT i FROM Item i " + fetch + where + "ORDER BY i.id", Item.class)
+                    .setReadOnly(true)
+                    .setFetchSize(SCROLL_FETCH_SIZE)
                     .setFirstResult(page * size)
-                    .setMaxResults(size)
-                    .getResultList();
+                    .setMaxResults(size);
+            if (categoryId != null) {
+                query.setParameter("categoryId", categoryId);
+            }
+            
+            try (ScrollableResults<Item> rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                int count = 0;
+                while (rows.next()) {
+                    consumer.accept(rows.get());
+                    if (++count % SCROLL_FETCH_SIZE == 0) {
+                        em.clear();
+                    }
+                }
+            }
+            tx.commit();
         } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
             em.close();
         }
     }
     
     /**
-     * Count total items
+     * Stream every (id, sku) pair through a server-side cursor
+     * (SKU index warm-up)
      */
-    public long count() {
+    public void forEachSku(BiConsumer<Long, String> consumer) {
+        scrollIndex("SELECT id, sku FROM item", query -> query
+                .addScalar("id", Long.class)
+                .addScalar("sku", String.class),
+            row -> consumer.accept((Long) row[0], (String) row[1]));
+    }
+    
+    /**
+     * Stream every item as a summary, in id order, through a server-side
+     * cursor (search index warm-up)
+     */
+    public void forEachSummary(Consumer<ItemSummary> consumer) {
+        scrollIndex("SELECT id, sku, name, price, stock, category_id FROM item ORDER BY id", query -> query
+                .addScalar("id", Long.class)
+                .addScalar("sku", String.class)
+                .addScalar("name", String.class)
+                .addScalar("price", BigDecimal.class)
+                .addScalar("stock", Integer.class)
+                .addScalar("category_id", Long.class),
+            row -> consumer.accept(new ItemSummary((Long) row[0], (String) row[1], (String) row[2],
+                    (BigDecimal) row[3], (Integer) row[4], (Long) row[5])));
+    }
+    
+    /**
+     * Aggregate every category's items in one pass (CategoryTotals seed).
+     * Row: category id, item count, stock sum, price sum, min and max
+     * price, newest updated_at.
+     */
+    public void forEachCategoryTotals(Consumer<Object[]> consumer) {
+        scrollIndex(CATEGORY_TOTALS, query -> query
+                .addScalar("category_id", Long.class)
+                .addScalar("items", Long.class)
+                .addScalar("stock", Long.class)
+                .addScalar("price_sum", BigDecimal.class)
+                .addScalar("min_price", BigDecimal.class)
+                .addScalar("max_price", BigDecimal.class)
+                .addScalar("last_updated", LocalDateTime.class),
+            consumer);
+    }
+    
+    /**
+     * Read-only native scroll in its own transaction (Postgres only uses a
+     * cursor, and honours the fetch size, inside one)
+     */
+    @SuppressWarnings("unchecked")
+    private void scrollIndex(String sql, Consumer<NativeQuery<Object[]>> scalars, Consumer<Object[]> consumer) {
         EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
         try {
-            return em.createQuery("SELECT COUNT(i) FROM Item i", Long.class)
-                    .getSingleResult();
+            tx.begin();
+            NativeQuery<Object[]> query = em.unwrap(Session.class).createNativeQuery(sql);
+            scalars.accept(query);
+            query.setReadOnly(true).setFetchSize(INDEX_FETCH_SIZE);
+            try (ScrollableResults<Object[]> rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    consumer.accept(rows.get());
+                }
+            }
+            tx.commit();
         } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
             em.close();
         }
     }
@@ -54,104 +339,326 @@ public class ItemRepository {
      * Find item by ID
      */
     public Optional<Item> findById(Long id) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            String query = useJoinFetch
-                ? "SELECT i FROM Item i JOIN FETCH i.category WHERE i.id = :id"
-                : "SELECT i FROM Item i WHERE i.id = :id";
-                
+        String query = useJoinFetch
+            ? "SELECT i FROM Item i JOIN FETCH i.category WHERE i.id = :id"
+            : "SELECT i FROM Item i WHERE i.id = :id";
+            
+        return UnitOfWork.read(emf, em -> {
             List<Item> results = em.createQuery(query, Item.class)
                     .setParameter("id", id)
                     .getResultList();
                     
-            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
-        } finally {
-            em.close();
+            return results.isEmpty() ? Optional.<Item>empty() : Optional.of(results.get(0));
+        });
+    }
+    
+    /**
+     * Find items by category ID after the given id (keyset pagination)
+     */
+    public List<ItemView> findByCategoryIdAfter(Long categoryId, Long lastId, int limit) {
+        if (!useJoinFetch) {
+            return UnitOfWork.read(emf, em -> toViews(em.createNamedQuery("Item.findByCategoryIdAfter", Item.class)
+                    .setParameter("categoryId", categoryId)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(limit)
+                    .getResultList()));
         }
+        return UnitOfWork.read(emf, em -> em.createQuery(
+                VIEW_SELECT + "WHERE c.id = :categoryId AND i.id > :lastId ORDER BY i.id", ItemView.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setParameter("categoryId", categoryId)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList());
     }
     
     /**
-     * Find items by category ID with pagination
+     * Find an item projection by ID (GET; updates use findById)
      */
-    public List<Item> findByCategoryId(Long categoryId, int page, int size) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            String queryName = useJoinFetch 
-                ? "Item.findByCategoryIdWithJoin" 
-                : "Item.findByCategoryId";
-                
-            return em.createNamedQuery(queryName, Item.class)
+    public Optional<ItemView> findViewById(Long id) {
+        if (!useJoinFetch) {
+            return UnitOfWork.read(emf, em -> Optional.ofNullable(em.find(Item.class, id)).map(ItemView::of));
+        }
+        return UnitOfWork.read(emf, em -> em.createQuery(VIEW_SELECT + "WHERE i.id = :id", ItemView.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst());
+    }
+    
+    /**
+     * Find item projections for several ids in one statement (missing ids
+     * are left out)
+     */
+    public List<ItemView> findViewsById(Collection<Long> ids) {
+        return UnitOfWork.read(emf, em -> em.createQuery(VIEW_SELECT + "WHERE i.id IN :ids", ItemView.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+    
+    /**
+     * Find an item projection by SKU (unique, indexed)
+     */
+    public Optional<ItemView> findViewBySku(String sku) {
+        return UnitOfWork.read(emf, em -> em.createQuery(VIEW_SELECT + "WHERE i.sku = :sku", ItemView.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setParameter("sku", sku)
+                .getResultStream()
+                .findFirst());
+    }
+    
+    /**
+     * Find item projections for several SKUs in one statement
+     */
+    public List<ItemView> findViewsBySku(Collection<String> skus) {
+        return UnitOfWork.read(emf, em -> em.createQuery(VIEW_SELECT + "WHERE i.sku IN :skus", ItemView.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setParameter("skus", skus)
+                .getResultList());
+    }
+    
+    /**
+     * Copy entities while their EntityManager is open (lazy categories load here)
+     */
+    private static List<ItemView> toViews(List<Item> items) {
+        List<ItemView> views = new ArrayList<>(items.size());
+        for (Item item : items) {
+            views.add(ItemView.of(item));
+        }
+        return views;
+    }
+    
+    /**
+     * Changes after the token: items (flat, category by id) and
+     * tombstones in (changedAt, id) order, see ChangeStatement
+     */
+    @SuppressWarnings("unchecked")
+    public List<Change<ItemSummary>> findChanges(ChangeToken since, int limit) {
+        return UnitOfWork.read(emf, em -> {
+            LocalDateTime horizon = ChangeStatement.horizon(em);
+            NativeQuery<Object[]> query = em.unwrap(Session.class).createNativeQuery(CHANGES)
+                    .addScalar("id", Long.class)
+                    .addScalar("changed_at", LocalDateTime.class)
+                    .addScalar("deleted", Boolean.class)
+                    .addScalar("sku", String.class)
+                    .addScalar("name", String.class)
+                    .addScalar("price", BigDecimal.class)
+                    .addScalar("stock", Integer.class)
+                    .addScalar("category_id", Long.class);
+            List<Object[]> rows = ChangeStatement.bind(query, horizon, since, limit).getResultList();
+            List<Change<ItemSummary>> changes = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                boolean deleted = (Boolean) row[2];
+                changes.add(new Change<>(id, (LocalDateTime) row[1], deleted, deleted ? null
+                        : new ItemSummary(id, (String) row[3], (String) row[4], (BigDecimal) row[5],
+                                (Integer) row[6], (Long) row[7])));
+            }
+            return changes;
+        });
+    }
+    
+    /**
+     * Newest item updated_at, in one category or (null) in all of them;
+     * null when there are no items
+     */
+    public LocalDateTime findLastUpdated(Long categoryId) {
+        return UnitOfWork.read(emf, em -> categoryId != null
+            ? em.createQuery("SELECT MAX(i.updatedAt) FROM Item i WHERE i.category.id = :categoryId",
+                    LocalDateTime.class)
+                .setParameter("categoryId", categoryId)
+                .getSingleResult()
+            : em.createQuery("SELECT MAX(i.updatedAt) FROM Item i", LocalDateTime.class)
+                .getSingleResult());
+    }
+    
+    /**
+     * Lowest and highest item price, in one category or (null) in all of
+     * them; both null when there are no items
+     */
+    public BigDecimal[] findPriceRange(Long categoryId) {
+        return UnitOfWork.read(emf, em -> {
+            Object[] row = categoryId != null
+                ? em.createQuery("SELECT MIN(i.price), MAX(i.price) FROM Item i WHERE i.category.id = :categoryId",
+                        Object[].class)
                     .setParameter("categoryId", categoryId)
-                    .setFirstResult(page * size)
-                    .setMaxResults(size)
-                    .getResultList();
-        } finally {
-            em.close();
+                    .getSingleResult()
+                : em.createQuery("SELECT MIN(i.price), MAX(i.price) FROM Item i", Object[].class)
+                    .getSingleResult();
+            return new BigDecimal[] {(BigDecimal) row[0], (BigDecimal) row[1]};
+        });
+    }
+    
+    /**
+     * Validator of one item, read without hydrating it
+     */
+    public Optional<Revision> findRevision(Long id) {
+        return UnitOfWork.read(emf, em -> em.createQuery(
+                "SELECT i.updatedAt, c.updatedAt FROM Item i JOIN i.category c WHERE i.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .map(row -> Revision.of(1, (LocalDateTime) row[0], (LocalDateTime) row[1])));
+    }
+    
+    /**
+     * Validator of the item list, optionally by category
+     *
+     * @return empty if the category does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Revision> findListRevision(Long categoryId) {
+        return UnitOfWork.read(emf, em -> {
+            NativeQuery<Object[]> query = em.unwrap(Session.class)
+                    .createNativeQuery(categoryId != null ? REVISION_BY_CATEGORY : REVISION_ALL)
+                    .addScalar("last_modified", LocalDateTime.class)
+                    .addScalar("total", Long.class);
+            if (categoryId != null) {
+                query.setParameter("categoryId", categoryId);
+            }
+            return query.getResultStream()
+                    .findFirst()
+                    .map(row -> new Revision((LocalDateTime) row[0], (Long) row[1]));
+        });
+    }
+    
+    /**
+     * Apply a merge patch in one statement, rewriting the row only if a
+     * value differs
+     *
+     * @return empty if the item does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<PatchResult<ItemView>> patch(Long id, ItemPatch patch) {
+        PatchStatement statement = new PatchStatement("item")
+                .set("sku", patch.sku())
+                .set("name", patch.name())
+                .set("price", patch.price(), "numeric(10,2)")
+                .set("stock", patch.stock())
+                .set("category_id", patch.categoryId());
+        try {
+            return UnitOfWork.write(emf, em -> {
+                NativeQuery<Object[]> query = em.unwrap(Session.class)
+                        .createNativeQuery(statement.sql(PATCH_SELECT))
+                        .addScalar("item_id", Long.class)
+                        .addScalar("sku", String.class)
+                        .addScalar("item_name", String.class)
+                        .addScalar("price", BigDecimal.class)
+                        .addScalar("stock", Integer.class)
+                        .addScalar("item_updated_at", LocalDateTime.class)
+                        .addScalar("category_id", Long.class)
+                        .addScalar("code", String.class)
+                        .addScalar("category_name", String.class)
+                        .addScalar("category_updated_at", LocalDateTime.class)
+                        .addScalar("changed", Boolean.class);
+                return statement.bind(query, id).getResultStream()
+                        .findFirst()
+                        .map(row -> new PatchResult<>(new ItemView((Long) row[0], (String) row[1], (String) row[2],
+                                (BigDecimal) row[3], (Integer) row[4],
+                                new CategoryView((Long) row[6], (String) row[7], (String) row[8], (LocalDateTime) row[9]),
+                                (LocalDateTime) row[5]), (Boolean) row[10]));
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error patching item", e);
         }
     }
     
     /**
-     * Count items by category ID
+     * Add delta to the stock if the current stock is at least required,
+     * in one conditional UPDATE. The stock comes back either way: after
+     * the change, or as found when it was too low. Also applies a combined
+     * batch, with its net delta and strictest requirement.
      */
-    public long countByCategoryId(Long categoryId) {
-        EntityManager em = emf.createEntityManager();
+    @SuppressWarnings("unchecked")
+    public StockResult adjustStock(Long id, long delta, long required) {
         try {
-            return em.createQuery(
-                "SELECT COUNT(i) FROM Item i WHERE i.category.id = :categoryId", Long.class)
-                .setParameter("categoryId", categoryId)
-                .getSingleResult();
-        } finally {
-            em.close();
+            return UnitOfWork.write(emf, em -> {
+                List<Object[]> rows = em.unwrap(Session.class).createNativeQuery(ADJUST_STOCK)
+                        .addScalar("stock", Integer.class)
+                        .addScalar("applied", Boolean.class)
+                        .addScalar("updated_at", LocalDateTime.class)
+                        .setParameter("id", id)
+                        .setParameter("delta", delta)
+                        .setParameter("required", required)
+                        .getResultList();
+                if (rows.isEmpty()) {
+                    return StockResult.notFound();
+                }
+                Object[] row = rows.get(0);
+                int stock = (Integer) row[0];
+                return Boolean.TRUE.equals(row[1])
+                        ? StockResult.applied(stock, (LocalDateTime) row[2])
+                        : StockResult.insufficient(stock);
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error adjusting stock", e);
         }
     }
     
     /**
-     * Save (create or update) item
+     * Save (create or update) item.
+     * An item loaded earlier in the same request is already managed, so it
+     * is flushed in place instead of being re-read by merge.
      */
     public Item save(Item item) {
+        try {
+            return UnitOfWork.write(emf, em -> {
+                Item saved = item;
+                if (item.getId() == null) {
+                    em.persist(item);
+                } else if (!em.contains(item)) {
+                    saved = em.merge(item);
+                }
+                return saved;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error saving item", e);
+        }
+    }
+    
+    /**
+     * Insert new items in a single transaction with JDBC batching.
+     * Ids come from the pooled item sequence, so INSERTs are deferred to
+     * flush and sent BULK_BATCH_SIZE at a time.
+     */
+    public void saveAll(List<Item> items) {
         EntityManager em = emf.createEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
+            em.unwrap(Session.class).setJdbcBatchSize(BULK_BATCH_SIZE);
             tx.begin();
-            Item result;
-            if (item.getId() == null) {
-                em.persist(item);
-                result = item;
-            } else {
-                result = em.merge(item);
+            for (int i = 0; i < items.size(); i++) {
+                em.persist(items.get(i));
+                if ((i + 1) % BULK_BATCH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
             }
+            em.flush();
             tx.commit();
-            return result;
         } catch (Exception e) {
             if (tx.isActive()) {
                 tx.rollback();
             }
-            throw new RuntimeException("Error saving item", e);
+            throw new RuntimeException("Error saving items", e);
         } finally {
             em.close();
         }
     }
     
     /**
-     * Delete item by ID
+     * Delete item by ID in one statement, leaving a tombstone for the
+     * change feed (and notifying the item stream, as every item write
+     * here does)
      */
     public void delete(Long id) {
-        EntityManager em = emf.createEntityManager();
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-            Item item = em.find(Item.class, id);
-            if (item != null) {
-                em.remove(item);
-            }
-            tx.commit();
+            UnitOfWork.write(emf, em -> em.createNativeQuery(DELETE_ROW)
+                    .setParameter("id", id)
+                    .getSingleResult());
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error deleting item", e);
-        } finally {
-            em.close();
         }
     }
     
@@ -159,15 +666,12 @@ public class ItemRepository {
      * Check if item exists
      */
     public boolean existsById(Long id) {
-        EntityManager em = emf.createEntityManager();
-        try {
+        return UnitOfWork.read(emf, em -> {
             Long count = em.createQuery(
                 "SELECT COUNT(i) FROM Item i WHERE i.id = :id", Long.class)
                 .setParameter("id", id)
                 .getSingleResult();
             return count > 0;
-        } finally {
-            em.close();
-        }
+        });
     }
 }
@@ -0,0 +1,74 @@
+package com.benchmark.jersey.repository;
+
+import jakarta.persistence.Query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds a merge-patch UPDATE for the columns a patch actually carries:
+ * <pre>
+ * WITH updated AS (UPDATE t SET col = :col, ..., updated_at = now()
+ *                  WHERE id = :id AND (col IS DISTINCT FROM :col OR ...) RETURNING *)
+ * SELECT ..., true AS changed FROM updated r ...
+ * UNION ALL
+ * SELECT ..., false AS changed FROM t r ... WHERE r.id = :id AND NOT EXISTS (SELECT 1 FROM updated)
+ * </pre>
+ * One round trip, no prior SELECT: the row is rewritten (and updated_at
+ * moves) only when a value differs, the current row comes back either
+ * way, and no row at all means the id does not exist.
+ */
+final class PatchStatement {
+
+    private final String table;
+    private final StringBuilder assignments = new StringBuilder();
+    private final StringBuilder changes = new StringBuilder();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    PatchStatement(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Patch a column when the value is present (null means absent)
+     */
+    PatchStatement set(String column, Object value) {
+        return set(column, value, null);
+    }
+
+    /**
+     * Same, casting the parameter to the column type so the comparison
+     * sees the value as it would be stored (e.g. numeric rounding)
+     */
+    PatchStatement set(String column, Object value, String sqlType) {
+        if (value == null) {
+            return this;
+        }
+        String expression = sqlType == null ? ":" + column : "CAST(:" + column + " AS " + sqlType + ")";
+        assignments.append(column).append(" = ").append(expression).append(", ");
+        if (changes.length() > 0) {
+            changes.append(" OR ");
+        }
+        changes.append(column).append(" IS DISTINCT FROM ").append(expression);
+        parameters.put(column, value);
+        return this;
+    }
+
+    /**
+     * @param select SELECT list and FROM clause with %1$s for the changed
+     *               flag and %2$s for the row source, aliased r
+     */
+    String sql(String select) {
+        return "WITH updated AS (UPDATE " + table + " SET " + assignments + "updated_at = now()"
+            + " WHERE id = :id AND (" + changes + ") RETURNING *) "
+            + select.formatted("true", "updated")
+            + " UNION ALL " + select.formatted("false", table)
+            + " WHERE r.id = :id AND NOT EXISTS (SELECT 1 FROM updated)";
+    }
+
+    <Q extends Query> Q bind(Q query, Long id) {
+        query.setParameter("id", id);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
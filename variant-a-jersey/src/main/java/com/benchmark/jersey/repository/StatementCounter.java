@@ -0,0 +1,30 @@
+package com.benchmark.jersey.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * Registered through hibernate.session_factory.statement_inspector; the
+ * bulkheads reset it before each request and report the count in the
+ * X-SQL-Statements response header and over JMX.
+ */
+public class StatementCounter implements StatementInspector {
+
+    public static final String HEADER = "X-SQL-Statements";
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
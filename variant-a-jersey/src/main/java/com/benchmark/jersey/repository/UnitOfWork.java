@@ -0,0 +1,166 @@
+package com.benchmark.jersey.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One EntityManager per request, bound to the thread that runs it.
+ * <p>
+ * Repository calls made inside {@link #run} share one persistence context
+ * and one connection, so an entity read earlier in the request is updated
+ * in place instead of being re-read by merge. The transaction starts at
+ * the first write and commits when the request's work returns, before the
+ * response is written. Outside a unit of work (start-up, streamed pages,
+ * bulk paths with their own transaction boundaries) each repository call
+ * gets its own short-lived EntityManager.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final EntityManagerFactory emf;
+    private EntityManager em;
+    private boolean rollbackOnly;
+    private List<Runnable> afterCommit;
+
+    private UnitOfWork(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * Run the work in a unit of work, committing if it returns normally.
+     * Joins the current unit of work if one is already open.
+     */
+    public static <T> T run(EntityManagerFactory emf, Supplier<T> work) {
+        if (CURRENT.get() != null) {
+            return work.get();
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(emf);
+        CURRENT.set(unitOfWork);
+        T result;
+        try {
+            result = work.get();
+            unitOfWork.complete();
+        } finally {
+            CURRENT.remove();
+            unitOfWork.close();
+        }
+        // Outside the unit of work, so actions registering more run them at once
+        if (unitOfWork.afterCommit != null) {
+            unitOfWork.afterCommit.forEach(Runnable::run);
+        }
+        return result;
+    }
+
+    /**
+     * Run the action once the current unit of work has committed (dropped
+     * if it rolls back), or straight away outside a unit of work
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork == null) {
+            action.run();
+            return;
+        }
+        if (unitOfWork.afterCommit == null) {
+            unitOfWork.afterCommit = new ArrayList<>();
+        }
+        unitOfWork.afterCommit.add(action);
+    }
+    
+    /**
+     * Run a query on the current persistence context, or on a throwaway one
+     */
+    static <T> T read(EntityManagerFactory emf, Function<EntityManager, T> work) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork != null) {
+            return work.apply(unitOfWork.entityManager());
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Run a write in the current transaction (started on demand), or in a
+     * transaction of its own. Inside a unit of work the change is flushed
+     * straight away so constraint violations reach the caller, and a
+     * failure marks the whole unit of work for rollback.
+     */
+    static <T> T write(EntityManagerFactory emf, Function<EntityManager, T> work) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        if (unitOfWork == null) {
+            EntityManager em = emf.createEntityManager();
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                T result = work.apply(em);
+                tx.commit();
+                return result;
+            } finally {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                em.close();
+            }
+        }
+
+        EntityManager em = unitOfWork.entityManager();
+        EntityTransaction tx = em.getTransaction();
+        if (!tx.isActive()) {
+            tx.begin();
+        }
+        try {
+            T result = work.apply(em);
+            em.flush();
+            return result;
+        } catch (RuntimeException e) {
+            unitOfWork.rollbackOnly = true;
+            throw e;
+        }
+    }
+
+    private EntityManager entityManager() {
+        if (em == null) {
+            em = emf.createEntityManager();
+        }
+        return em;
+    }
+
+    private void complete() {
+        if (em != null) {
+            EntityTransaction tx = em.getTransaction();
+            if (tx.isActive()) {
+                if (rollbackOnly || tx.getRollbackOnly()) {
+                    tx.rollback();
+                    afterCommit = null;
+                    return;
+                }
+                tx.commit();
+            }
+        }
+    }
+
+    private void close() {
+        if (em == null) {
+            return;
+        }
+        try {
+            EntityTransaction tx = em.getTransaction();
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
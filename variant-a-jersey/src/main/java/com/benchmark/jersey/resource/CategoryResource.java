@@ -1,21 +1,35 @@
 package com.benchmark.jersey.resource;
 
+import com.benchmark.jersey.config.BinaryJacksonProvider;
+import com.benchmark.jersey.config.Bulkheads;
+import com.benchmark.jersey.dto.CategoryPatch;
+import com.benchmark.jersey.dto.CategoryView;
+import com.benchmark.jersey.dto.ChangeFeed;
+import com.benchmark.jersey.dto.DeletePolicy;
+import com.benchmark.jersey.dto.ItemView;
+import com.benchmark.jersey.dto.MergePatch;
 import com.benchmark.jersey.dto.PageResponse;
+import com.benchmark.jersey.dto.Revision;
 import com.benchmark.jersey.entity.Category;
 import com.benchmark.jersey.service.CategoryService;
 import com.benchmark.jersey.service.ItemService;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
 import java.net.URI;
+import java.util.Optional;
 
 /**
- * JAX-RS Resource for Category endpoints
+ * JAX-RS Resource for Category endpoints.
+ * Requests are suspended and run on the read or write bulkhead.
  */
 @Path("/categories")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryJacksonProvider.SMILE, BinaryJacksonProvider.CBOR})
+@Consumes({MediaType.APPLICATION_JSON, BinaryJacksonProvider.SMILE, BinaryJacksonProvider.CBOR})
 public class CategoryResource {
     
     @Inject
@@ -24,37 +38,130 @@ public class CategoryResource {
     @Inject
     private ItemService itemService;
     
+    @Inject
+    private Bulkheads bulkheads;
+    
     /**
      * GET /categories?page=X&size=Y
-     * Get all categories with pagination
+     * GET /categories?after=CURSOR&size=Y (keyset pagination)
+     * Get all categories with pagination (tagged with the list revision)
      */
     @GET
-    public Response getAll(
+    public void getAll(
             @QueryParam("page") @DefaultValue("0") int page,
-            @QueryParam("size") @DefaultValue("50") int size) {
-        
-        if (page < 0 || size <= 0 || size > 1000) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"Invalid pagination parameters\"}")
-                    .build();
-        }
+            @QueryParam("size") @DefaultValue("50") int size,
+            @QueryParam("after") String after,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Suspended AsyncResponse async) {
         
-        PageResponse<Category> result = categoryService.findAll(page, size);
-        return Response.ok(result).build();
+        bulkheads.reads().submit(async, () -> {
+            if (page < 0 || size <= 0 || size > 1000) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid pagination parameters\"}")
+                        .build();
+            }
+            
+            // Queried only to answer If-None-Match, otherwise from the catalog
+            Revision revision = ifNoneMatch != null
+                    ? categoryService.listRevision()
+                    : categoryService.cachedListRevision();
+            if (revision.matches(ifNoneMatch)) {
+                return ConditionalGet.notModified(revision);
+            }
+            
+            PageResponse<Category> result;
+            try {
+                result = after != null
+                        ? categoryService.findAfter(after, size)
+                        : categoryService.findAll(page, size);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid cursor\"}")
+                        .build();
+            }
+            return ConditionalGet.tagged(Response.ok(result).build(), revision);
+        });
     }
     
     /**
      * GET /categories/{id}
-     * Get category by ID
+     * Get category by ID (served and tagged from the in-memory catalog)
      */
     @GET
     @Path("/{id}")
-    public Response getById(@PathParam("id") Long id) {
-        return categoryService.findById(id)
-                .map(category -> Response.ok(category).build())
+    public void getById(
+            @PathParam("id") Long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Suspended AsyncResponse async) {
+        
+        bulkheads.reads().submit(async, () -> categoryService.findById(id)
+                .map(category -> {
+                    Revision revision = Revision.of(1, category.getUpdatedAt());
+                    return revision.matches(ifNoneMatch)
+                            ? ConditionalGet.notModified(revision)
+                            : ConditionalGet.tagged(Response.ok(category).build(), revision);
+                })
                 .orElse(Response.status(Response.Status.NOT_FOUND)
                         .entity("{\"error\": \"Category not found\"}")
-                        .build());
+                        .build()));
+    }
+    
+    /**
+     * GET /categories/changes?since=TOKEN&limit=100
+     * Category upserts and tombstones after the token in (changedAt, id)
+     * order; start without a token, then poll with the returned next
+     */
+    @GET
+    @Path("/changes")
+    public void changes(
+            @QueryParam("since") String since,
+            @QueryParam("limit") @DefaultValue("100") int limit,
+            @Suspended AsyncResponse async) {
+        
+        bulkheads.reads().submit(async, () -> {
+            if (limit < 1 || limit > ChangeFeed.MAX_LIMIT) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"limit must be between 1 and " + ChangeFeed.MAX_LIMIT + "\"}")
+                        .build();
+            }
+            ChangeFeed<CategoryView> feed;
+            try {
+                feed = categoryService.findChanges(since, limit);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid token\"}")
+                        .build();
+            }
+            return Response.ok(feed).build();
+        });
+    }
+    
+    /**
+     * GET /categories/stats
+     * Item count, total stock, price range and average and last change of
+     * every category with items (in-memory counters, no aggregate query)
+     */
+    @GET
+    @Path("/stats")
+    public void getAllStats(@Suspended AsyncResponse async) {
+        bulkheads.reads().submit(async, () -> Response.ok(itemService.stats()).build());
+    }
+    
+    /**
+     * GET /categories/{id}/stats
+     * Item statistics of one category (zeros when it has no items)
+     */
+    @GET
+    @Path("/{id}/stats")
+    public void getStats(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        bulkheads.reads().submit(async, () -> {
+            if (!categoryService.exists(id)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Category not found\"}")
+                        .build();
+            }
+            return Response.ok(itemService.stats(id)).build();
+        });
     }
     
     /**
@@ -62,21 +169,24 @@ public class CategoryResource {
      * Create new category
      */
     @POST
-    public Response create(@Valid Category category, @Context UriInfo uriInfo) {
-        // Ensure ID is null for creation
-        category.setId(null);
+    public void create(@Valid Category category, @Context UriInfo uriInfo, @Suspended AsyncResponse async) {
+        // Resolve request-scoped context before leaving the request thread
+        UriBuilder location = uriInfo.getAbsolutePathBuilder();
         
-        try {
-            Category created = categoryService.save(category);
-            URI uri = uriInfo.getAbsolutePathBuilder()
-                    .path(String.valueOf(created.getId()))
-                    .build();
-            return Response.created(uri).entity(created).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        }
+        bulkheads.writes().submit(async, () -> {
+            // Ensure ID is null for creation
+            category.setId(null);
+            
+            try {
+                Category created = categoryService.save(category);
+                URI uri = location.path(String.valueOf(created.getId())).build();
+                return Response.created(uri).entity(created).build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
     }
     
     /**
@@ -85,72 +195,196 @@ public class CategoryResource {
      */
     @PUT
     @Path("/{id}")
-    public Response update(@PathParam("id") Long id, @Valid Category category) {
-        if (!categoryService.exists(id)) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Category not found\"}")
-                    .build();
-        }
-        
-        category.setId(id);
-        
-        try {
-            Category updated = categoryService.save(category);
-            return Response.ok(updated).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        }
+    public void update(@PathParam("id") Long id, @Valid Category category, @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> {
+            if (!categoryService.exists(id)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Category not found\"}")
+                        .build();
+            }
+            
+            category.setId(id);
+            
+            try {
+                Category updated = categoryService.save(category);
+                return Response.ok(updated).build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
+    }
+    
+    /**
+     * PATCH /categories/{id} (application/merge-patch+json)
+     * Change only the given fields with one UPDATE ... RETURNING; the row
+     * is rewritten only when a value differs
+     */
+    @PATCH
+    @Path("/{id}")
+    @Consumes(MergePatch.MEDIA_TYPE)
+    public void patch(@PathParam("id") Long id, JsonNode body, @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> {
+            CategoryPatch patch;
+            try {
+                patch = CategoryPatch.from(body);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+            
+            try {
+                return categoryService.patch(id, patch)
+                        .map(patched -> ConditionalGet.tagged(Response.ok(patched.value()).build(),
+                                Revision.of(1, patched.value().updatedAt())))
+                        .orElse(Response.status(Response.Status.NOT_FOUND)
+                                .entity("{\"error\": \"Category not found\"}")
+                                .build());
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
     }
     
     /**
-     * DELETE /categories/{id}
-     * Delete category
+     * DELETE /categories/{id}?onItems=reject|cascade|reassign&reassignTo=ID
+     * Delete category; its items are rejected (409), deleted or moved with
+     * set-based statements. onItems defaults to CATEGORY_DELETE_POLICY.
      */
     @DELETE
     @Path("/{id}")
-    public Response delete(@PathParam("id") Long id) {
-        if (!categoryService.exists(id)) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Category not found\"}")
-                    .build();
-        }
-        
-        try {
-            categoryService.delete(id);
-            return Response.noContent().build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
-        }
+    public void delete(
+            @PathParam("id") Long id,
+            @QueryParam("onItems") String onItems,
+            @QueryParam("reassignTo") Long reassignTo,
+            @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> {
+            if (!categoryService.exists(id)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Category not found\"}")
+                        .build();
+            }
+            
+            DeletePolicy policy;
+            try {
+                policy = onItems == null ? categoryService.defaultDeletePolicy() : DeletePolicy.parse(onItems);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+            if (policy == DeletePolicy.REASSIGN
+                    && (reassignTo == null || reassignTo.equals(id) || !categoryService.exists(reassignTo))) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"reassignTo must name another existing category\"}")
+                        .build();
+            }
+            
+            try {
+                return switch (categoryService.delete(id, policy, reassignTo)) {
+                    case DELETED -> Response.noContent().build();
+                    case NOT_FOUND -> Response.status(Response.Status.NOT_FOUND)
+                            .entity("{\"error\": \"Category not found\"}")
+                            .build();
+                    case HAS_ITEMS -> Response.status(Response.Status.CONFLICT)
+                            .entity("{\"error\": \"Category has items\"}")
+                            .build();
+                };
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
+    }
+    
+    /**
+     * DELETE /categories/{id}/items
+     * Delete every item of the category in one statement
+     */
+    @DELETE
+    @Path("/{id}/items")
+    public void deleteItems(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> {
+            if (!categoryService.exists(id)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Category not found\"}")
+                        .build();
+            }
+            
+            try {
+                int deleted = categoryService.deleteItems(id);
+                return Response.ok("{\"deleted\": " + deleted + "}").build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
     }
     
     /**
      * GET /categories/{id}/items?page=X&size=Y
+     * GET /categories/{id}/items?after=CURSOR&size=Y (keyset pagination)
      * Get items for a specific category (relational endpoint)
      */
     @GET
     @Path("/{id}/items")
-    public Response getItems(
+    public void getItems(
             @PathParam("id") Long id,
             @QueryParam("page") @DefaultValue("0") int page,
-            @QueryParam("size") @DefaultValue("50") int size) {
+            @QueryParam("size") @DefaultValue("50") int size,
+            @QueryParam("after") String after,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Suspended AsyncResponse async) {
         
-        if (!categoryService.exists(id)) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Category not found\"}")
-                    .build();
+        bulkheads.reads().submit(async, () -> {
+            // Also proves the category exists (404 takes priority over 400);
+            // queried only to answer If-None-Match, otherwise from memory
+            Optional<Revision> revision = ifNoneMatch != null
+                    ? itemService.findListRevision(id)
+                    : itemService.cachedListRevision(id);
+            if (revision.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Category not found\"}")
+                        .build();
+            }
+            
+            if (page < 0 || size <= 0 || size > 1000) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid pagination parameters\"}")
+                        .build();
+            }
+            
+            if (revision.get().matches(ifNoneMatch)) {
+                return ConditionalGet.notModified(revision.get());
+            }
+            return ConditionalGet.tagged(items(id, page, size, after), revision.get());
+        });
+    }
+    
+    private Response items(Long id, int page, int size, String after) {
+        if (after == null) {
+            // Rows and category existence in one statement, total from memory
+            return itemService.findByCategoryId(id, page, size)
+                    .map(found -> Response.ok(found).build())
+                    .orElse(Response.status(Response.Status.NOT_FOUND)
+                            .entity("{\"error\": \"Category not found\"}")
+                            .build());
         }
         
-        if (page < 0 || size <= 0 || size > 1000) {
+        PageResponse<ItemView> result;
+        try {
+            result = itemService.findByCategoryIdAfter(id, after, size);
+        } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"Invalid pagination parameters\"}")
+                    .entity("{\"error\": \"Invalid cursor\"}")
                     .build();
         }
-        
-        var result = itemService.findByCategoryId(id, page, size);
         return Response.ok(result).build();
     }
 }
@@ -0,0 +1,32 @@
+package com.benchmark.jersey.resource;
+
+import com.benchmark.jersey.dto.Revision;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Conditional GET helpers. If-None-Match is captured on the request
+ * thread as a plain header value and compared on the bulkhead.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * 304 carrying the current tag
+     */
+    static Response notModified(Revision revision) {
+        return Response.notModified(new EntityTag(revision.tag())).build();
+    }
+
+    /**
+     * Tag a 200 response; errors go out untagged
+     */
+    static Response tagged(Response response, Revision revision) {
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            return response;
+        }
+        return Response.fromResponse(response).tag(new EntityTag(revision.tag())).build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.benchmark.jersey.resource;
+
+import com.benchmark.jersey.config.Bulkheads;
+import com.benchmark.jersey.service.ExportService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.*;
+import java.io.UncheckedIOException;
+
+/**
+ * JAX-RS Resource for streaming catalog exports (COPY TO STDOUT).
+ * The response is written on the bulk bulkhead thread that resumes it.
+ */
+@Path("/export")
+public class ExportResource {
+    
+    @Inject
+    private ExportService exportService;
+    
+    @Inject
+    private Bulkheads bulkheads;
+    
+    /**
+     * GET /export/items?format=csv|ndjson
+     * Whole catalog in one response, streamed straight from Postgres
+     */
+    @GET
+    @Path("/items")
+    public void exportItems(@QueryParam("format") @DefaultValue("csv") String format,
+                            @Suspended AsyncResponse async) {
+        bulkheads.bulk().submit(async, () -> export(format));
+    }
+    
+    private Response export(String format) {
+        boolean ndjson;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            ndjson = true;
+        } else if ("csv".equalsIgnoreCase(format)) {
+            ndjson = false;
+        } else {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity("{\"error\": \"format must be csv or ndjson\"}")
+                    .build();
+        }
+        
+        StreamingOutput body = output -> {
+            try {
+                exportService.exportItems(ndjson, output);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return Response.ok(body)
+                .type(ndjson ? ImportResource.APPLICATION_NDJSON : ImportResource.TEXT_CSV)
+                .header("Content-Disposition", "attachment; filename=\"items." + (ndjson ? "ndjson" : "csv") + "\"")
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.benchmark.jersey.resource;
+
+import com.benchmark.jersey.config.Bulkheads;
+import com.benchmark.jersey.dto.ImportResult;
+import com.benchmark.jersey.service.ImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.*;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * JAX-RS Resource for bulk catalog imports (COPY based), run on the bulk bulkhead
+ */
+@Path("/admin/import")
+@Produces(MediaType.APPLICATION_JSON)
+public class ImportResource {
+    
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    
+    private static final ObjectMapper JSON = new ObjectMapper();
+    
+    @Inject
+    private ImportService importService;
+    
+    @Inject
+    private Bulkheads bulkheads;
+    
+    /**
+     * POST /admin/import/items
+     * CSV (header, then sku,name,price,stock,categoryId) or NDJSON body,
+     * merged into item by sku
+     */
+    @POST
+    @Path("/items")
+    @Consumes({TEXT_CSV, APPLICATION_NDJSON})
+    public void importItems(InputStream body, @Context HttpHeaders headers, @Suspended AsyncResponse async) {
+        boolean ndjson = isNdjson(headers);
+        bulkheads.bulk().submit(async, () -> {
+            try {
+                ImportResult result = importService.importItems(body, ndjson);
+                return Response.ok(result).build();
+            } catch (IllegalArgumentException e) {
+                return error(Response.Status.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                return error(Response.Status.INTERNAL_SERVER_ERROR, e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * POST /admin/import/categories
+     * CSV (header, then code,name) or NDJSON body, merged into category by code
+     */
+    @POST
+    @Path("/categories")
+    @Consumes({TEXT_CSV, APPLICATION_NDJSON})
+    public void importCategories(InputStream body, @Context HttpHeaders headers, @Suspended AsyncResponse async) {
+        boolean ndjson = isNdjson(headers);
+        bulkheads.bulk().submit(async, () -> {
+            try {
+                ImportResult result = importService.importCategories(body, ndjson);
+                return Response.ok(result).build();
+            } catch (IllegalArgumentException e) {
+                return error(Response.Status.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                return error(Response.Status.INTERNAL_SERVER_ERROR, e.getMessage());
+            }
+        });
+    }
+    
+    private static boolean isNdjson(HttpHeaders headers) {
+        MediaType type = headers.getMediaType();
+        return type != null && type.isCompatible(MediaType.valueOf(APPLICATION_NDJSON));
+    }
+    
+    private static Response error(Response.Status status, String message) {
+        try {
+            return Response.status(status)
+                    .entity(JSON.writeValueAsString(Map.of("error", String.valueOf(message))))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(status).build();
+        }
+    }
+}
@@ -1,78 +1,382 @@
 package com.benchmark.jersey.resource;
 
+import com.benchmark.jersey.config.BinaryJacksonProvider;
+import com.benchmark.jersey.config.Bulkheads;
+import com.benchmark.jersey.dto.BulkResult;
+import com.benchmark.jersey.dto.ChangeFeed;
+import com.benchmark.jersey.dto.Cursor;
+import com.benchmark.jersey.dto.ItemPatch;
+import com.benchmark.jersey.dto.ItemSummary;
+import com.benchmark.jersey.dto.ItemView;
+import com.benchmark.jersey.dto.MergePatch;
 import com.benchmark.jersey.dto.PageResponse;
+import com.benchmark.jersey.dto.Revision;
+import com.benchmark.jersey.dto.StockAdjustment;
+import com.benchmark.jersey.dto.StockResult;
 import com.benchmark.jersey.entity.Item;
 import com.benchmark.jersey.entity.Category;
 import com.benchmark.jersey.service.ItemService;
 import com.benchmark.jersey.service.CategoryService;
+import com.benchmark.jersey.service.ItemStream;
+import com.benchmark.jersey.service.SearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
+import jakarta.ws.rs.ext.Providers;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
- * JAX-RS Resource for Item endpoints
+ * JAX-RS Resource for Item endpoints.
+ * Requests are suspended and run on the read, write or bulk bulkhead.
  */
 @Path("/items")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryJacksonProvider.SMILE, BinaryJacksonProvider.CBOR})
+@Consumes({MediaType.APPLICATION_JSON, BinaryJacksonProvider.SMILE, BinaryJacksonProvider.CBOR})
 public class ItemResource {
     
+    private static final int MAX_BULK_ROWS = 10000;
+    private static final int MAX_SKU_LOOKUP = 100;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    
+    private static final Validator VALIDATOR =
+            Validation.buildDefaultValidatorFactory().getValidator();
+    
     @Inject
     private ItemService itemService;
     
     @Inject
     private CategoryService categoryService;
     
+    @Inject
+    private Bulkheads bulkheads;
+    
+    @Inject
+    private ItemStream itemStream;
+    
+    @Inject
+    private BinaryJacksonProvider binary;
+    
+    @Context
+    private Providers providers;
+    
     /**
      * GET /items?page=X&size=Y&categoryId=Z
-     * Get all items with optional category filter
+     * GET /items?after=CURSOR&size=Y&categoryId=Z (keyset pagination)
+     * GET /items?page=X&size=Y&categoryId=Z&stream=true (rows written as they are read)
+     * Get all items with optional category filter.
+     * Tagged with the list revision (newest updated_at plus count), taken
+     * from memory; only an If-None-Match queries the exact one, and a
+     * match gets a 304 before any row is read.
      */
     @GET
-    public Response getAll(
+    public void getAll(
             @QueryParam("page") @DefaultValue("0") int page,
             @QueryParam("size") @DefaultValue("50") int size,
-            @QueryParam("categoryId") Long categoryId) {
+            @QueryParam("categoryId") Long categoryId,
+            @QueryParam("after") String after,
+            @QueryParam("stream") @DefaultValue("false") boolean stream,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Context HttpHeaders headers,
+            @Suspended AsyncResponse async) {
         
-        if (page < 0 || size <= 0 || size > 1000) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\": \"Invalid pagination parameters\"}")
-                    .build();
-        }
-        
-        PageResponse<Item> result;
-        
-        if (categoryId != null) {
-            // Filter by category
-            if (!categoryService.exists(categoryId)) {
+        // Providers is request-scoped: resolve the format and mapper on the request thread
+        MediaType streamType = stream ? BinaryJacksonProvider.negotiate(headers.getAcceptableMediaTypes()) : null;
+        ObjectMapper mapper = stream ? mapperFor(streamType) : null;
+        bulkheads.reads().submit(async, () -> {
+            if (page < 0 || size <= 0 || size > 1000) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid pagination parameters\"}")
+                        .build();
+            }
+            
+            // Also proves the category exists
+            Optional<Revision> revision = ifNoneMatch != null
+                    ? itemService.findListRevision(categoryId)
+                    : itemService.cachedListRevision(categoryId);
+            if (revision.isEmpty()) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity("{\"error\": \"Category not found\"}")
                         .build();
             }
-            result = itemService.findByCategoryId(categoryId, page, size);
-        } else {
-            // Get all items
-            result = itemService.findAll(page, size);
+            if (revision.get().matches(ifNoneMatch)) {
+                return ConditionalGet.notModified(revision.get());
+            }
+            return ConditionalGet.tagged(page(page, size, categoryId, after, streamType, mapper), revision.get());
+        });
+    }
+    
+    private Response page(int page, int size, Long categoryId, String after, MediaType streamType, ObjectMapper mapper) {
+        if (streamType != null && after == null) {
+            return Response.ok(streamPage(mapper, categoryId, page, size), streamType).build();
+        }
+        
+        PageResponse<ItemView> result;
+        
+        try {
+            if (categoryId != null && after == null) {
+                // Filter by category: rows and existence in one statement, total from memory
+                return itemService.findByCategoryId(categoryId, page, size)
+                        .map(found -> Response.ok(found).build())
+                        .orElse(Response.status(Response.Status.NOT_FOUND)
+                                .entity("{\"error\": \"Category not found\"}")
+                                .build());
+            } else if (categoryId != null) {
+                // Filter by category (keyset)
+                result = itemService.findByCategoryIdAfter(categoryId, after, size);
+            } else {
+                // Get all items
+                result = after != null
+                        ? itemService.findAfter(after, size)
+                        : itemService.findAll(page, size);
+            }
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid cursor\"}")
+                    .build();
         }
         
         return Response.ok(result).build();
     }
     
+    /**
+     * Write a page with the same shape as PageResponse (JSON, Smile or
+     * CBOR, as negotiated), but straight
+     * from a database cursor to the socket: no List<Item> is built and the
+     * first byte leaves as soon as the first row is read. The count runs
+     * after the rows, so it does not delay time-to-first-byte.
+     */
+    private StreamingOutput streamPage(ObjectMapper mapper, Long categoryId, int page, int size) {
+        // Let the generator buffer fill instead of flushing the socket per row
+        ObjectWriter rowWriter = mapper.writerFor(Item.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        
+        return output -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(output)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                long[] lastId = {-1};
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("content");
+                try {
+                    itemService.streamPage(categoryId, page, size, item -> {
+                        try {
+                            rowWriter.writeValue(generator, item);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        lastId[0] = item.getId();
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                generator.writeEndArray();
+                
+                PageResponse<Item> meta = new PageResponse<>(null, page, size, itemService.count(categoryId));
+                generator.writeNumberField("page", meta.getPage());
+                generator.writeNumberField("size", meta.getSize());
+                generator.writeNumberField("totalElements", meta.getTotalElements());
+                generator.writeNumberField("totalPages", meta.getTotalPages());
+                generator.writeBooleanField("first", meta.isFirst());
+                generator.writeBooleanField("last", meta.isLast());
+                if (!meta.isLast() && lastId[0] >= 0) {
+                    generator.writeStringField("nextCursor", Cursor.encode(lastId[0]));
+                }
+                generator.writeEndObject();
+            }
+        };
+    }
+    
+    private ObjectMapper mapperFor(MediaType type) {
+        ObjectMapper binaryMapper = binary.mapperFor(type);
+        if (binaryMapper != null) {
+            return binaryMapper;
+        }
+        return providers
+                .getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE)
+                .getContext(Item.class);
+    }
+    
     /**
      * GET /items/{id}
-     * Get item by ID
+     * Get item by ID. With If-None-Match the revision is checked first
+     * (two timestamps, no entity); otherwise the tag comes from the view.
      */
     @GET
     @Path("/{id}")
-    public Response getById(@PathParam("id") Long id) {
-        return itemService.findById(id)
-                .map(item -> Response.ok(item).build())
+    public void getById(
+            @PathParam("id") Long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Suspended AsyncResponse async) {
+        
+        bulkheads.reads().submit(async, () -> {
+            if (ifNoneMatch != null) {
+                Optional<Revision> revision = itemService.findRevision(id);
+                if (revision.isPresent() && revision.get().matches(ifNoneMatch)) {
+                    return ConditionalGet.notModified(revision.get());
+                }
+            }
+            return itemService.findView(id)
+                    .map(item -> ConditionalGet.tagged(Response.ok(item).build(), Revision.of(item)))
+                    .orElse(Response.status(Response.Status.NOT_FOUND)
+                            .entity("{\"error\": \"Item not found\"}")
+                            .build());
+        });
+    }
+    
+    /**
+     * GET /items/by-sku/{sku}
+     * Get item by SKU, resolved through the in-memory SKU index
+     */
+    @GET
+    @Path("/by-sku/{sku}")
+    public void getBySku(
+            @PathParam("sku") String sku,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @Suspended AsyncResponse async) {
+        
+        bulkheads.reads().submit(async, () -> itemService.findBySku(sku)
+                .map(item -> {
+                    Revision revision = Revision.of(item);
+                    return revision.matches(ifNoneMatch)
+                            ? ConditionalGet.notModified(revision)
+                            : ConditionalGet.tagged(Response.ok(item).build(), revision);
+                })
                 .orElse(Response.status(Response.Status.NOT_FOUND)
                         .entity("{\"error\": \"Item not found\"}")
-                        .build());
+                        .build()));
+    }
+    
+    /**
+     * GET /items/by-sku?sku=A&sku=B (up to MAX_SKU_LOOKUP)
+     * Items for several SKUs in one statement, plus the SKUs not found
+     */
+    @GET
+    @Path("/by-sku")
+    public void getBySkus(@QueryParam("sku") List<String> skus, @Suspended AsyncResponse async) {
+        bulkheads.reads().submit(async, () -> {
+            if (skus == null || skus.isEmpty() || skus.size() > MAX_SKU_LOOKUP) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Expected between 1 and " + MAX_SKU_LOOKUP + " sku parameters\"}")
+                        .build();
+            }
+            return Response.ok(itemService.findBySkus(skus)).build();
+        });
+    }
+    
+    /**
+     * GET /items/search?q=&categoryId=&minPrice=&maxPrice=&limit=20
+     * Case-insensitive substring search over name and SKU with category,
+     * price and stock facets, answered from the in-memory trigram index
+     * (no SQL statement)
+     */
+    @GET
+    @Path("/search")
+    public void search(
+            @QueryParam("q") String query,
+            @QueryParam("categoryId") Long categoryId,
+            @QueryParam("minPrice") BigDecimal minPrice,
+            @QueryParam("maxPrice") BigDecimal maxPrice,
+            @QueryParam("limit") @DefaultValue("20") int limit,
+            @Suspended AsyncResponse async) {
+        
+        bulkheads.reads().submit(async, () -> {
+            if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"limit must be between 1 and " + MAX_SEARCH_LIMIT + "\"}")
+                        .build();
+            }
+            if (query != null && !query.isBlank() && query.strip().length() < SearchIndex.MIN_QUERY_LENGTH) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"q must be empty or at least " + SearchIndex.MIN_QUERY_LENGTH
+                                + " characters\"}")
+                        .build();
+            }
+            if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"minPrice must not exceed maxPrice\"}")
+                        .build();
+            }
+            return Response.ok(itemService.search(query, categoryId, minPrice, maxPrice, limit)).build();
+        });
+    }
+    
+    /**
+     * GET /items/changes?since=TOKEN&limit=100
+     * Item upserts and tombstones after the token in (changedAt, id)
+     * order; start without a token, then poll with the returned next
+     */
+    @GET
+    @Path("/changes")
+    public void changes(
+            @QueryParam("since") String since,
+            @QueryParam("limit") @DefaultValue("100") int limit,
+            @Suspended AsyncResponse async) {
+        
+        bulkheads.reads().submit(async, () -> {
+            if (limit < 1 || limit > ChangeFeed.MAX_LIMIT) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"limit must be between 1 and " + ChangeFeed.MAX_LIMIT + "\"}")
+                        .build();
+            }
+            ChangeFeed<ItemSummary> feed;
+            try {
+                feed = itemService.findChanges(since, limit);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid token\"}")
+                        .build();
+            }
+            return Response.ok(feed).build();
+        });
+    }
+    
+    /**
+     * GET /items/stream?categoryId=
+     * Server-Sent Events: an "item" event (a change with the current row)
+     * per written item, "delete" per deleted one, "reset" when changes may
+     * have been missed. Only registers the connection (an in-memory
+     * category check, no bulkhead); ItemStream sends from its own threads.
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(
+            @QueryParam("categoryId") Long categoryId,
+            @Context SseEventSink sink,
+            @Context Sse sse,
+            @Context org.glassfish.grizzly.http.server.Request request) {
+        
+        if (categoryId != null && !categoryService.exists(categoryId)) {
+            throw new NotFoundException(Response.status(Response.Status.NOT_FOUND)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity("{\"error\": \"Category not found\"}")
+                    .build());
+        }
+        // Stalled subscribers are cut off without flushing what is queued for them
+        itemStream.subscribe(sink, sse, categoryId, request.getConnection()::terminateSilently);
     }
     
     /**
@@ -80,7 +384,13 @@ public class ItemResource {
      * Create new item
      */
     @POST
-    public Response create(@Valid ItemRequest request, @Context UriInfo uriInfo) {
+    public void create(@Valid ItemRequest request, @Context UriInfo uriInfo, @Suspended AsyncResponse async) {
+        // Resolve request-scoped context before leaving the request thread
+        UriBuilder location = uriInfo.getAbsolutePathBuilder();
+        bulkheads.writes().submit(async, () -> create(request, location));
+    }
+    
+    private Response create(ItemRequest request, UriBuilder location) {
         // Validate category exists
         Category category = categoryService.findById(request.getCategoryId())
                 .orElse(null);
@@ -91,6 +401,13 @@ public class ItemResource {
                     .build();
         }
         
+        // Known duplicates are rejected before a transaction is opened
+        if (itemService.isSkuTaken(request.getSku())) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity("{\"error\": \"SKU already exists\"}")
+                    .build();
+        }
+        
         // Create item
         Item item = new Item();
         item.setSku(request.getSku());
@@ -101,24 +418,104 @@ public class ItemResource {
         
         try {
             Item created = itemService.save(item);
-            URI uri = uriInfo.getAbsolutePathBuilder()
-                    .path(String.valueOf(created.getId()))
-                    .build();
+            URI uri = location.path(String.valueOf(created.getId())).build();
             return Response.created(uri).entity(created).build();
         } catch (Exception e) {
+            // Taken by a row the index has not seen yet
+            if (ItemService.isUniqueViolation(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("{\"error\": \"SKU already exists\"}")
+                        .build();
+            }
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"error\": \"" + e.getMessage() + "\"}")
                     .build();
         }
     }
     
+    /**
+     * POST /items/bulk
+     * Create many items at once; invalid rows are reported, not fatal
+     */
+    @POST
+    @Path("/bulk")
+    public void createBulk(List<ItemRequest> requests, @Suspended AsyncResponse async) {
+        bulkheads.bulk().submit(async, () -> createBulk(requests));
+    }
+    
+    private Response createBulk(List<ItemRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BULK_ROWS) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Expected between 1 and " + MAX_BULK_ROWS + " items\"}")
+                    .build();
+        }
+        
+        BulkResult result = new BulkResult(requests.size());
+        List<Item> items = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        Set<String> skus = new HashSet<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            ItemRequest request = requests.get(i);
+            if (request == null) {
+                result.failed(i, null, "Empty row");
+                continue;
+            }
+            Set<ConstraintViolation<ItemRequest>> violations = VALIDATOR.validate(request);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<ItemRequest> violation = violations.iterator().next();
+                result.failed(i, request.getSku(), violation.getPropertyPath() + " " + violation.getMessage());
+                continue;
+            }
+            Category category = categoryService.findById(request.getCategoryId()).orElse(null);
+            if (category == null) {
+                result.failed(i, request.getSku(), "Category not found");
+                continue;
+            }
+            if (!skus.add(request.getSku())) {
+                result.failed(i, request.getSku(), "Duplicate sku in request");
+                continue;
+            }
+            if (itemService.isSkuTaken(request.getSku())) {
+                result.failed(i, request.getSku(), "SKU already exists");
+                continue;
+            }
+            
+            Item item = new Item();
+            item.setSku(request.getSku());
+            item.setName(request.getName());
+            item.setPrice(request.getPrice());
+            item.setStock(request.getStock());
+            item.setCategory(category);
+            items.add(item);
+            indexes.add(i);
+        }
+        
+        List<String> errors = itemService.createAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            if (errors.get(i) == null) {
+                result.succeeded(indexes.get(i), item.getId());
+            } else {
+                result.failed(indexes.get(i), item.getSku(), errors.get(i));
+            }
+        }
+        result.getErrors().sort(Comparator.comparingInt(BulkResult.RowError::getIndex));
+        
+        return Response.ok(result).build();
+    }
+    
     /**
      * PUT /items/{id}
      * Update existing item
      */
     @PUT
     @Path("/{id}")
-    public Response update(@PathParam("id") Long id, @Valid ItemRequest request) {
+    public void update(@PathParam("id") Long id, @Valid ItemRequest request, @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> update(id, request));
+    }
+    
+    private Response update(Long id, ItemRequest request) {
         Item existingItem = itemService.findById(id).orElse(null);
         
         if (existingItem == null) {
@@ -152,6 +549,11 @@ public class ItemResource {
             Item updated = itemService.save(existingItem);
             return Response.ok(updated).build();
         } catch (Exception e) {
+            if (ItemService.isUniqueViolation(e)) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("{\"error\": \"SKU already exists\"}")
+                        .build();
+            }
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"error\": \"" + e.getMessage() + "\"}")
                     .build();
@@ -159,26 +561,120 @@ public class ItemResource {
     }
     
     /**
-     * DELETE /items/{id}
-     * Delete item
+     * PATCH /items/{id} (application/merge-patch+json)
+     * Change only the given fields with one UPDATE ... RETURNING; the row
+     * is rewritten only when a value differs. Category existence is
+     * checked against the in-memory catalog.
      */
-    @DELETE
+    @PATCH
     @Path("/{id}")
-    public Response delete(@PathParam("id") Long id) {
-        if (!itemService.exists(id)) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Item not found\"}")
-                    .build();
-        }
-        
+    @Consumes(MergePatch.MEDIA_TYPE)
+    public void patch(@PathParam("id") Long id, JsonNode body, @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> {
+            ItemPatch patch;
+            try {
+                patch = ItemPatch.from(body);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+            
+            if (patch.categoryId() != null && !categoryService.exists(patch.categoryId())) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Category not found\"}")
+                        .build();
+            }
+            
+            try {
+                return itemService.patch(id, patch)
+                        .map(patched -> ConditionalGet.tagged(Response.ok(patched.value()).build(),
+                                Revision.of(patched.value())))
+                        .orElse(Response.status(Response.Status.NOT_FOUND)
+                                .entity("{\"error\": \"Item not found\"}")
+                                .build());
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
+    }
+    
+    /**
+     * POST /items/{id}/stock:adjust {"delta": -2, "floor": 0}
+     * One conditional UPDATE, applied only if the stock stays at or above
+     * the floor (409 otherwise). Hot SKUs (HOT_SKU_IDS) are combined into
+     * one UPDATE per millisecond window without holding a bulkhead thread.
+     */
+    @POST
+    @Path("/{id}/stock:adjust")
+    public void adjustStock(@PathParam("id") Long id, JsonNode body, @Suspended AsyncResponse async) {
+        StockAdjustment adjustment;
         try {
-            itemService.delete(id);
-            return Response.noContent().build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+            adjustment = StockAdjustment.from(body);
+        } catch (IllegalArgumentException e) {
+            async.resume(Response.status(Response.Status.BAD_REQUEST)
                     .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
+                    .build());
+            return;
         }
+        
+        if (itemService.isHotSku(id)) {
+            itemService.adjustHotStock(id, adjustment).whenComplete((result, error) -> async.resume(
+                    error == null ? stockResponse(id, result)
+                            : Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                                    .entity("{\"error\": \"Error adjusting stock\"}")
+                                    .build()));
+            return;
+        }
+        
+        bulkheads.writes().submit(async, () -> {
+            try {
+                return stockResponse(id, itemService.adjustStock(id, adjustment));
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
+    }
+    
+    private static Response stockResponse(Long id, StockResult result) {
+        return switch (result.outcome()) {
+            case APPLIED -> Response.ok("{\"id\": " + id + ", \"stock\": " + result.stock() + "}").build();
+            case INSUFFICIENT -> Response.status(Response.Status.CONFLICT)
+                    .entity("{\"error\": \"Insufficient stock\"}")
+                    .build();
+            case NOT_FOUND -> Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"Item not found\"}")
+                    .build();
+        };
+    }
+    
+    /**
+     * DELETE /items/{id}
+     * Delete item
+     */
+    @DELETE
+    @Path("/{id}")
+    public void delete(@PathParam("id") Long id, @Suspended AsyncResponse async) {
+        bulkheads.writes().submit(async, () -> {
+            if (!itemService.exists(id)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Item not found\"}")
+                        .build();
+            }
+            
+            try {
+                itemService.delete(id);
+                return Response.noContent().build();
+            } catch (Exception e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                        .build();
+            }
+        });
     }
     
     /**
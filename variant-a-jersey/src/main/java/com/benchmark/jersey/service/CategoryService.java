@@ -1,55 +1,249 @@
 package com.benchmark.jersey.service;
 
+import com.benchmark.jersey.dto.CategoryPatch;
+import com.benchmark.jersey.dto.CategoryView;
+import com.benchmark.jersey.dto.ChangeFeed;
+import com.benchmark.jersey.dto.ChangeToken;
+import com.benchmark.jersey.dto.Cursor;
+import com.benchmark.jersey.dto.DeletePolicy;
 import com.benchmark.jersey.dto.PageResponse;
+import com.benchmark.jersey.dto.PatchResult;
+import com.benchmark.jersey.dto.Revision;
 import com.benchmark.jersey.entity.Category;
 import com.benchmark.jersey.repository.CategoryRepository;
+import com.benchmark.jersey.repository.UnitOfWork;
 import jakarta.inject.Inject;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Service layer for Category operations
+ * Service layer for Category operations.
+ * Keeps the whole category table (~2000 rows) in memory: an id->Category
+ * map plus an existence bitset, loaded at startup and written through on
+ * save/patch/delete once the change commits, so findById and exists never
+ * hit the database.
+ * Bound as a singleton so the catalog is shared by all requests.
  */
 public class CategoryService {
     
+    private static final DeletePolicy DEFAULT_DELETE_POLICY = DeletePolicy.fromEnv();
+    
     @Inject
     private CategoryRepository categoryRepository;
     
+    @Inject
+    private SkuIndex skuIndex;
+    
+    @Inject
+    private SearchIndex searchIndex;
+    
+    @Inject
+    private CategoryTotals categoryTotals;
+    
+    private volatile Map<Long, Category> catalog = new ConcurrentHashMap<>();
+    private final IdBitSet present = new IdBitSet();
+    private volatile boolean loaded;
+    
+    /**
+     * Load (or reload) the in-memory catalog from the database. The fresh
+     * map and bitset are each published in one step, so lookups during a
+     * reload see the old catalog or the new one, never a partial one.
+     */
+    public synchronized void loadCatalog() {
+        Map<Long, Category> fresh = new ConcurrentHashMap<>();
+        for (Category category : categoryRepository.findAllUnpaged()) {
+            fresh.put(category.getId(), category);
+        }
+        present.reset(fresh.keySet());
+        catalog = fresh;
+        loaded = true;
+    }
+    
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    loadCatalog();
+                }
+            }
+        }
+    }
+    
     /**
      * Find all categories with pagination
      */
     public PageResponse<Category> findAll(int page, int size) {
         List<Category> categories = categoryRepository.findAll(page, size);
         long totalElements = categoryRepository.count();
-        return new PageResponse<>(categories, page, size, totalElements);
+        PageResponse<Category> result = new PageResponse<>(categories, page, size, totalElements);
+        if (!result.isLast() && !categories.isEmpty()) {
+            result.setNextCursor(Cursor.encode(categories.get(categories.size() - 1).getId()));
+        }
+        return result;
+    }
+    
+    /**
+     * Find categories after the given cursor (keyset pagination, no COUNT)
+     */
+    public PageResponse<Category> findAfter(String after, int size) {
+        List<Category> categories = categoryRepository.findAfter(Cursor.decode(after), size + 1);
+        if (categories.size() <= size) {
+            return new PageResponse<>(categories, size, null);
+        }
+        List<Category> content = categories.subList(0, size);
+        return new PageResponse<>(content, size, Cursor.encode(content.get(size - 1).getId()));
+    }
+    
+    /**
+     * Category changes (upserts and deletes) after the token, oldest first
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public ChangeFeed<CategoryView> findChanges(String since, int limit) {
+        ChangeToken token = ChangeToken.decode(since);
+        return ChangeFeed.of(categoryRepository.findChanges(token, limit + 1), limit, token);
+    }
+    
+    /**
+     * Validator of the category list (one aggregate query)
+     */
+    public Revision listRevision() {
+        return categoryRepository.listRevision();
+    }
+    
+    /**
+     * Validator of the category list from the in-memory catalog (no query)
+     */
+    public Revision cachedListRevision() {
+        ensureLoaded();
+        Map<Long, Category> current = catalog;
+        return Revision.of(current.size(), current.values().stream()
+                .map(Category::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null));
+    }
+    
+    /**
+     * Validator of one category, from the in-memory catalog
+     */
+    public Optional<Revision> findRevision(Long id) {
+        return findById(id).map(category -> Revision.of(1, category.getUpdatedAt()));
     }
     
     /**
      * Find category by ID
      */
     public Optional<Category> findById(Long id) {
-        return categoryRepository.findById(id);
+        if (id == null) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        return Optional.ofNullable(catalog.get(id));
     }
     
     /**
-     * Create or update category
+     * Create or update category; the catalog takes a detached copy once
+     * committed
      */
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        remember(saved.getId(), saved.getCode(), saved.getName(), saved.getUpdatedAt());
+        return saved;
+    }
+    
+    /**
+     * Apply a merge patch (single UPDATE ... RETURNING, no prior read);
+     * a changed row replaces the catalog entry
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<PatchResult<CategoryView>> patch(Long id, CategoryPatch patch) {
+        if (patch.isEmpty()) {
+            return findById(id).map(category -> new PatchResult<>(CategoryView.of(category), false));
+        }
+        Optional<PatchResult<CategoryView>> result = categoryRepository.patch(id, patch);
+        result.filter(PatchResult::changed).ifPresent(patched -> {
+            CategoryView view = patched.value();
+            remember(view.id(), view.code(), view.name(), view.updatedAt());
+        });
+        return result;
+    }
+    
+    // Catalog entries are detached copies, published only once committed
+    private void remember(Long id, String code, String name, LocalDateTime updatedAt) {
+        Category category = new Category(code, name);
+        category.setId(id);
+        category.setUpdatedAt(updatedAt);
+        ensureLoaded();
+        UnitOfWork.afterCommit(() -> {
+            catalog.put(id, category);
+            present.add(id);
+        });
+    }
+    
+    /**
+     * Delete category, applying the policy to its items
+     */
+    public DeletePolicy.Outcome delete(Long id, DeletePolicy policy, Long target) {
+        DeletePolicy.Deletion deletion = categoryRepository.delete(id, policy, target);
+        DeletePolicy.Outcome outcome = deletion.outcome();
+        if (outcome != DeletePolicy.Outcome.HAS_ITEMS) {
+            UnitOfWork.afterCommit(() -> {
+                present.remove(id);
+                catalog.remove(id);
+            });
+        }
+        if (outcome == DeletePolicy.Outcome.DELETED) {
+            Long movedTo = policy == DeletePolicy.REASSIGN ? target : null;
+            if (movedTo != null) {
+                UnitOfWork.afterCommit(() -> searchIndex.reassignCategory(id, movedTo));
+            } else if (policy == DeletePolicy.CASCADE) {
+                forgetItems(id);
+            }
+            categoryTotals.drop(id, movedTo, deletion.movedAt());
+        }
+        return outcome;
+    }
+    
+    /**
+     * Delete every item of a category
+     *
+     * @return number of items deleted
+     */
+    public int deleteItems(Long id) {
+        int deleted = categoryRepository.deleteItems(id);
+        forgetItems(id);
+        categoryTotals.clear(id);
+        return deleted;
+    }
+    
+    // Swept by category once committed, so the delete never collects ids
+    private void forgetItems(Long categoryId) {
+        UnitOfWork.afterCommit(() -> searchIndex.removeCategory(categoryId, skuIndex::remove));
     }
     
     /**
-     * Delete category
+     * Policy for deletes that do not name one (CATEGORY_DELETE_POLICY)
      */
-    public void delete(Long id) {
-        categoryRepository.delete(id);
+    public DeletePolicy defaultDeletePolicy() {
+        return DEFAULT_DELETE_POLICY;
     }
     
     /**
      * Check if category exists
      */
     public boolean exists(Long id) {
-        return categoryRepository.existsById(id);
+        if (id == null) {
+            return false;
+        }
+        ensureLoaded();
+        return present.contains(id);
     }
 }
@@ -0,0 +1,335 @@
+package com.benchmark.jersey.service;
+
+import com.benchmark.jersey.dto.CategoryStats;
+import com.benchmark.jersey.dto.ItemSummary;
+import com.benchmark.jersey.repository.ItemRepository;
+import com.benchmark.jersey.repository.UnitOfWork;
+import jakarta.inject.Inject;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-category item statistics (count, stock, price range and average,
+ * last change) kept in memory, so dashboards and page totals need no
+ * aggregate query. Seeded with one GROUP BY at startup and moved by the
+ * item and category services once their unit of work commits; imports
+ * reload it. Item writes pass the previous and the current row, which
+ * the SearchIndex hands back since it holds every item's last row.
+ * <p>
+ * The last change is the newest updated_at the writes gave their rows
+ * (entity timestamps, RETURNING columns), never the JVM clock, so list
+ * tags built from it equal the ones the revision queries compute.
+ * <p>
+ * Counters are LongAdders and the price bounds AtomicLongs, so writers
+ * never lock. A bound cannot be taken back when the item holding it
+ * leaves or changes price: the range is then marked stale and recomputed
+ * with one indexed MIN/MAX query on the next read. The last change is
+ * handled the same way when an item leaves. Bound as a singleton.
+ */
+public class CategoryTotals {
+
+    @Inject
+    private ItemRepository itemRepository;
+
+    private volatile Map<Long, Totals> categories = new ConcurrentHashMap<>();
+    private volatile Totals catalog = new Totals(null);
+
+    /**
+     * Load (or reload) the statistics with one aggregate query
+     */
+    public synchronized void load() {
+        Map<Long, Totals> fresh = new ConcurrentHashMap<>();
+        Totals freshCatalog = new Totals(null);
+        itemRepository.forEachCategoryTotals(row -> {
+            Totals totals = new Totals((Long) row[0]);
+            totals.seed((Long) row[1], (Long) row[2], (BigDecimal) row[3], (BigDecimal) row[4],
+                    (BigDecimal) row[5], (LocalDateTime) row[6]);
+            freshCatalog.merge(totals);
+            fresh.put(totals.categoryId, totals);
+        });
+        categories = fresh;
+        catalog = freshCatalog;
+    }
+
+    /**
+     * Number of items, in one category or (null) in the whole catalog
+     */
+    public long count(Long categoryId) {
+        if (categoryId == null) {
+            return catalog.count.sum();
+        }
+        Totals totals = categories.get(categoryId);
+        return totals != null ? totals.count.sum() : 0;
+    }
+
+    /**
+     * Newest change to an item, in one category or (null) in the whole
+     * catalog; null if none is known
+     */
+    public LocalDateTime lastUpdated(Long categoryId) {
+        Totals totals = categoryId == null ? catalog : categories.get(categoryId);
+        if (totals != null && totals.lastStale) {
+            refreshLastUpdated(totals);
+        }
+        long last = totals != null ? totals.lastUpdated.get() : Long.MIN_VALUE;
+        return last == Long.MIN_VALUE ? null : dateTime(last);
+    }
+
+    /**
+     * Statistics of one category (zeros if it has no items)
+     */
+    public CategoryStats stats(Long categoryId) {
+        return Optional.ofNullable(categories.get(categoryId))
+                .map(this::stats)
+                .orElseGet(() -> new CategoryStats(categoryId, 0, 0, null, null, null, null));
+    }
+
+    /**
+     * Statistics of every category with items, by category id
+     */
+    public List<CategoryStats> stats() {
+        return categories.values().stream()
+                .filter(totals -> totals.count.sum() > 0)
+                .sorted(Comparator.comparing(totals -> totals.categoryId))
+                .map(this::stats)
+                .toList();
+    }
+
+    /**
+     * Account for a written item: previous is its row before the write
+     * (null if created), current after it (null if deleted) and updatedAt
+     * the updated_at current was written with
+     */
+    public void move(ItemSummary previous, ItemSummary current, LocalDateTime updatedAt) {
+        if (previous == null && current == null) {
+            return;
+        }
+        UnitOfWork.afterCommit(() -> {
+            long updated = current != null ? micros(updatedAt) : Long.MIN_VALUE;
+            catalog.change(previous, current, updated);
+            if (previous != null && current != null && previous.categoryId().equals(current.categoryId())) {
+                totals(current.categoryId()).change(previous, current, updated);
+                return;
+            }
+            if (previous != null) {
+                totals(previous.categoryId()).change(previous, null, Long.MIN_VALUE);
+            }
+            if (current != null) {
+                totals(current.categoryId()).change(null, current, updated);
+            }
+        });
+    }
+
+    /**
+     * Account for a stock adjustment of the item (its category from the
+     * row before it) that wrote updatedAt
+     */
+    public void adjustStock(ItemSummary item, int delta, LocalDateTime updatedAt) {
+        if (item == null) {
+            return;
+        }
+        UnitOfWork.afterCommit(() -> {
+            long updated = micros(updatedAt);
+            catalog.addStock(delta, updated);
+            totals(item.categoryId()).addStock(delta, updated);
+        });
+    }
+
+    /**
+     * All items of a category were deleted; the category stays
+     */
+    public void clear(Long categoryId) {
+        UnitOfWork.afterCommit(() -> catalog.subtract(categories.put(categoryId, new Totals(categoryId))));
+    }
+
+    /**
+     * A category was deleted; with a target its items moved there and
+     * were given movedAt (null if there were none)
+     */
+    public void drop(Long categoryId, Long target, LocalDateTime movedAt) {
+        UnitOfWork.afterCommit(() -> {
+            Totals removed = categories.remove(categoryId);
+            if (removed == null) {
+                return;
+            }
+            if (target != null) {
+                totals(target).merge(removed);
+                if (movedAt != null) {
+                    totals(target).touch(micros(movedAt));
+                    catalog.touch(micros(movedAt));
+                }
+            } else {
+                catalog.subtract(removed);
+            }
+        });
+    }
+
+    private Totals totals(Long categoryId) {
+        return categories.computeIfAbsent(categoryId, Totals::new);
+    }
+
+    private CategoryStats stats(Totals totals) {
+        if (totals.rangeStale) {
+            refreshRange(totals);
+        }
+        if (totals.lastStale) {
+            refreshLastUpdated(totals);
+        }
+        long count = totals.count.sum();
+        long last = totals.lastUpdated.get();
+        BigDecimal min = null;
+        BigDecimal avg = null;
+        BigDecimal max = null;
+        if (count > 0) {
+            min = BigDecimal.valueOf(totals.minCents.get(), 2);
+            max = BigDecimal.valueOf(totals.maxCents.get(), 2);
+            avg = BigDecimal.valueOf(totals.priceCents.sum())
+                    .divide(BigDecimal.valueOf(count), 0, RoundingMode.HALF_UP)
+                    .movePointLeft(2);
+        }
+        return new CategoryStats(totals.categoryId, count, totals.stock.sum(), min, avg, max,
+                last == Long.MIN_VALUE ? null : dateTime(last));
+    }
+
+    // A write during the query may not be in its result: leave the range
+    // stale so the next read recomputes it
+    private void refreshRange(Totals totals) {
+        long seen = totals.changes.get();
+        totals.rangeStale = false;
+        BigDecimal[] range = itemRepository.findPriceRange(totals.categoryId);
+        totals.minCents.set(range[0] != null ? cents(range[0]) : Long.MAX_VALUE);
+        totals.maxCents.set(range[1] != null ? cents(range[1]) : Long.MIN_VALUE);
+        if (totals.changes.get() != seen) {
+            totals.rangeStale = true;
+        }
+    }
+
+    // Same race handling as refreshRange
+    private void refreshLastUpdated(Totals totals) {
+        long seen = totals.changes.get();
+        totals.lastStale = false;
+        LocalDateTime last = itemRepository.findLastUpdated(totals.categoryId);
+        totals.lastUpdated.set(last != null ? micros(last) : Long.MIN_VALUE);
+        if (totals.changes.get() != seen) {
+            totals.lastStale = true;
+        }
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Accumulators of one category (categoryId null: the whole catalog)
+     */
+    private static final class Totals {
+
+        final Long categoryId;
+        final LongAdder count = new LongAdder();
+        final LongAdder stock = new LongAdder();
+        final LongAdder priceCents = new LongAdder();
+        final AtomicLong minCents = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong maxCents = new AtomicLong(Long.MIN_VALUE);
+        // Epoch microseconds (UTC-encoded local time)
+        final AtomicLong lastUpdated = new AtomicLong(Long.MIN_VALUE);
+        // Bumped before every change, lets the refreshes detect racing writes
+        final AtomicLong changes = new AtomicLong();
+        volatile boolean rangeStale;
+        // An item left: the newest updated_at may have gone with it
+        volatile boolean lastStale;
+
+        Totals(Long categoryId) {
+            this.categoryId = categoryId;
+        }
+
+        void seed(long items, long stockSum, BigDecimal priceSum, BigDecimal min, BigDecimal max,
+                  LocalDateTime updated) {
+            count.add(items);
+            stock.add(stockSum);
+            priceCents.add(cents(priceSum));
+            minCents.set(cents(min));
+            maxCents.set(cents(max));
+            lastUpdated.set(micros(updated));
+        }
+
+        void change(ItemSummary previous, ItemSummary current, long updated) {
+            changes.incrementAndGet();
+            count.add((current != null ? 1 : 0) - (previous != null ? 1 : 0));
+            if (previous != null) {
+                long cents = cents(previous.price());
+                stock.add(-previous.stock());
+                priceCents.add(-cents);
+                boolean samePrice = current != null && cents(current.price()) == cents;
+                if (!samePrice && (cents <= minCents.get() || cents >= maxCents.get())) {
+                    rangeStale = true;
+                }
+                if (current == null) {
+                    lastStale = true;
+                }
+            }
+            if (current != null) {
+                long cents = cents(current.price());
+                stock.add(current.stock());
+                priceCents.add(cents);
+                minCents.accumulateAndGet(cents, Math::min);
+                maxCents.accumulateAndGet(cents, Math::max);
+            }
+            touch(updated);
+        }
+
+        void addStock(int delta, long updated) {
+            stock.add(delta);
+            touch(updated);
+        }
+
+        void merge(Totals other) {
+            changes.incrementAndGet();
+            count.add(other.count.sum());
+            stock.add(other.stock.sum());
+            priceCents.add(other.priceCents.sum());
+            minCents.accumulateAndGet(other.minCents.get(), Math::min);
+            maxCents.accumulateAndGet(other.maxCents.get(), Math::max);
+            lastUpdated.accumulateAndGet(other.lastUpdated.get(), Math::max);
+            rangeStale |= other.rangeStale;
+            lastStale |= other.lastStale;
+        }
+
+        void subtract(Totals other) {
+            if (other == null) {
+                return;
+            }
+            changes.incrementAndGet();
+            count.add(-other.count.sum());
+            stock.add(-other.stock.sum());
+            priceCents.add(-other.priceCents.sum());
+            if (other.count.sum() > 0) {
+                rangeStale = true;
+                lastStale = true;
+            }
+        }
+
+        void touch(long updated) {
+            changes.incrementAndGet();
+            lastUpdated.accumulateAndGet(updated, Math::max);
+        }
+    }
+}
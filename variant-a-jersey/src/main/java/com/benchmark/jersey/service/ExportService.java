@@ -0,0 +1,22 @@
+package com.benchmark.jersey.service;
+
+import com.benchmark.jersey.repository.ExportRepository;
+import jakarta.inject.Inject;
+
+import java.io.OutputStream;
+
+/**
+ * Service layer for catalog exports
+ */
+public class ExportService {
+
+    @Inject
+    private ExportRepository exportRepository;
+
+    /**
+     * Stream the item ⋈ category join as CSV or NDJSON
+     */
+    public long exportItems(boolean ndjson, OutputStream output) {
+        return exportRepository.exportItems(ndjson, output);
+    }
+}
@@ -0,0 +1,68 @@
+package com.benchmark.jersey.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact, copy-on-write set of non-negative ids.
+ * Reads are lock-free against a volatile snapshot; writes are rare
+ * (category create/delete) and copy the word array.
+ */
+final class IdBitSet {
+
+    /** Ids beyond this bound are not representable (2^31 words of 64 bits) */
+    private static final long MAX_ID = ((long) Integer.MAX_VALUE << 6) - 1;
+
+    private volatile long[] words = new long[0];
+
+    boolean contains(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return false;
+        }
+        long[] snapshot = words;
+        int index = (int) (id >>> 6);
+        return index < snapshot.length && (snapshot[index] & (1L << id)) != 0;
+    }
+
+    synchronized void add(long id) {
+        checkRange(id);
+        int index = (int) (id >>> 6);
+        long[] copy = Arrays.copyOf(words, Math.max(words.length, index + 1));
+        copy[index] |= 1L << id;
+        words = copy;
+    }
+
+    synchronized void remove(long id) {
+        if (id < 0 || id > MAX_ID) {
+            return;
+        }
+        int index = (int) (id >>> 6);
+        if (index < words.length) {
+            long[] copy = words.clone();
+            copy[index] &= ~(1L << id);
+            words = copy;
+        }
+    }
+
+    /**
+     * Replace the whole content in one publication
+     */
+    synchronized void reset(Collection<Long> ids) {
+        long max = -1;
+        for (Long id : ids) {
+            checkRange(id);
+            max = Math.max(max, id);
+        }
+        long[] fresh = new long[max < 0 ? 0 : (int) ((max >>> 6) + 1)];
+        for (Long id : ids) {
+            fresh[(int) (id >>> 6)] |= 1L << id;
+        }
+        words = fresh;
+    }
+
+    private static void checkRange(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Id out of bitset range: " + id);
+        }
+    }
+}
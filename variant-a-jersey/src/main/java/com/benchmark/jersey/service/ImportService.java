@@ -0,0 +1,83 @@
+package com.benchmark.jersey.service;
+
+import com.benchmark.jersey.dto.ImportResult;
+import com.benchmark.jersey.repository.ImportRepository;
+import jakarta.inject.Inject;
+
+import java.io.InputStream;
+import java.sql.SQLException;
+
+/**
+ * Service layer for bulk catalog imports
+ */
+public class ImportService {
+
+    @Inject
+    private ImportRepository importRepository;
+
+    @Inject
+    private CategoryService categoryService;
+
+    @Inject
+    private SkuIndex skuIndex;
+
+    @Inject
+    private SearchIndex searchIndex;
+
+    @Inject
+    private CategoryTotals categoryTotals;
+
+    @Inject
+    private ItemStream itemStream;
+
+    /**
+     * Import items from CSV or NDJSON, then reload the SKU and search
+     * indexes and the category totals; imported rows are not notified
+     * one by one, stream subscribers are told to resync instead
+     */
+    public ImportResult importItems(InputStream body, boolean ndjson) {
+        ImportResult result;
+        try {
+            result = ndjson
+                    ? importRepository.importItemsNdjson(body)
+                    : importRepository.importItemsCsv(body);
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+        skuIndex.load();
+        searchIndex.load();
+        categoryTotals.load();
+        itemStream.reset();
+        return result;
+    }
+
+    /**
+     * Import categories from CSV or NDJSON, then refresh the in-memory catalog
+     */
+    public ImportResult importCategories(InputStream body, boolean ndjson) {
+        ImportResult result;
+        try {
+            result = ndjson
+                    ? importRepository.importCategoriesNdjson(body)
+                    : importRepository.importCategoriesCsv(body);
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+        categoryService.loadCatalog();
+        return result;
+    }
+
+    /**
+     * Data exceptions (SQLSTATE class 22, e.g. a CSV row with missing
+     * columns) mean the feed itself is malformed
+     */
+    private static RuntimeException translate(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql
+                    && sql.getSQLState() != null && sql.getSQLState().startsWith("22")) {
+                return new IllegalArgumentException(sql.getMessage(), e);
+            }
+        }
+        return e;
+    }
+}
@@ -1,12 +1,37 @@
 package com.benchmark.jersey.service;
 
+import com.benchmark.jersey.dto.CategoryStats;
+import com.benchmark.jersey.dto.ChangeFeed;
+import com.benchmark.jersey.dto.ChangeToken;
+import com.benchmark.jersey.dto.Cursor;
+import com.benchmark.jersey.dto.ItemPatch;
+import com.benchmark.jersey.dto.ItemSummary;
+import com.benchmark.jersey.dto.ItemView;
 import com.benchmark.jersey.dto.PageResponse;
+import com.benchmark.jersey.dto.PatchResult;
+import com.benchmark.jersey.dto.Revision;
+import com.benchmark.jersey.dto.SearchResult;
+import com.benchmark.jersey.dto.SkuLookup;
+import com.benchmark.jersey.dto.StockAdjustment;
+import com.benchmark.jersey.dto.StockResult;
 import com.benchmark.jersey.entity.Item;
 import com.benchmark.jersey.repository.ItemRepository;
+import com.benchmark.jersey.repository.UnitOfWork;
 import jakarta.inject.Inject;
 
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service layer for Item operations
@@ -16,36 +41,335 @@ public class ItemService {
     @Inject
     private ItemRepository itemRepository;
     
+    @Inject
+    private StockCombiner stockCombiner;
+    
+    @Inject
+    private SkuIndex skuIndex;
+    
+    @Inject
+    private SearchIndex searchIndex;
+    
+    @Inject
+    private CategoryTotals categoryTotals;
+    
+    @Inject
+    private CategoryService categoryService;
+    
+    // Rows committed per transaction by createAll
+    private static final int BULK_CHUNK_SIZE = 2000;
+    
+    /**
+     * Find all items with pagination (total from CategoryTotals)
+     */
+    public PageResponse<ItemView> findAll(int page, int size) {
+        return findPage(null, page, size).orElseThrow();
+    }
+    
+    /**
+     * Find items after the given cursor (keyset pagination, no COUNT)
+     */
+    public PageResponse<ItemView> findAfter(String after, int size) {
+        List<ItemView> items = itemRepository.findAfter(Cursor.decode(after), size + 1);
+        return cursorPage(items, size);
+    }
+    
+    /**
+     * Find items by category ID with pagination. Rows and the category's
+     * existence come from one statement, the total from CategoryTotals.
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<PageResponse<ItemView>> findByCategoryId(Long categoryId, int page, int size) {
+        return findPage(categoryId, page, size);
+    }
+    
+    private Optional<PageResponse<ItemView>> findPage(Long categoryId, int page, int size) {
+        return itemRepository.findPage(categoryId, page, size)
+                .map(items -> withNextCursor(
+                        new PageResponse<>(items, page, size, categoryTotals.count(categoryId))));
+    }
+    
+    /**
+     * Find items by category ID after the given cursor (keyset pagination, no COUNT)
+     */
+    public PageResponse<ItemView> findByCategoryIdAfter(Long categoryId, String after, int size) {
+        List<ItemView> items = itemRepository.findByCategoryIdAfter(categoryId, Cursor.decode(after), size + 1);
+        return cursorPage(items, size);
+    }
+    
+    /**
+     * Stream a page of items (optionally by category) row by row
+     */
+    public void streamPage(Long categoryId, int page, int size, Consumer<Item> consumer) {
+        itemRepository.scroll(categoryId, page, size, consumer);
+    }
+    
+    /**
+     * Count items, optionally by category (in memory, no COUNT)
+     */
+    public long count(Long categoryId) {
+        return categoryTotals.count(categoryId);
+    }
+    
     /**
-     * Find all items with pagination
+     * Item statistics of a category (in memory, no aggregate query)
      */
-    public PageResponse<Item> findAll(int page, int size) {
-        List<Item> items = itemRepository.findAll(page, size);
-        long totalElements = itemRepository.count();
-        return new PageResponse<>(items, page, size, totalElements);
+    public CategoryStats stats(Long categoryId) {
+        return categoryTotals.stats(categoryId);
     }
     
     /**
-     * Find items by category ID with pagination
+     * Item statistics of every category with items
      */
-    public PageResponse<Item> findByCategoryId(Long categoryId, int page, int size) {
-        List<Item> items = itemRepository.findByCategoryId(categoryId, page, size);
-        long totalElements = itemRepository.countByCategoryId(categoryId);
-        return new PageResponse<>(items, page, size, totalElements);
+    public List<CategoryStats> stats() {
+        return categoryTotals.stats();
     }
     
     /**
-     * Find item by ID
+     * Item changes (upserts and deletes) after the token, oldest first
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public ChangeFeed<ItemSummary> findChanges(String since, int limit) {
+        ChangeToken token = ChangeToken.decode(since);
+        return ChangeFeed.of(itemRepository.findChanges(token, limit + 1), limit, token);
+    }
+    
+    /**
+     * Find item by ID (managed entity, for updates)
      */
     public Optional<Item> findById(Long id) {
         return itemRepository.findById(id);
     }
     
+    /**
+     * Find item by ID as a read-only projection
+     */
+    public Optional<ItemView> findView(Long id) {
+        return itemRepository.findViewById(id);
+    }
+    
+    /**
+     * Find an item by SKU through the SKU index; a miss or a stale entry
+     * falls back to the unique sku index in the database and repairs it
+     */
+    public Optional<ItemView> findBySku(String sku) {
+        Long id = skuIndex.idOf(sku);
+        if (id != null) {
+            Optional<ItemView> view = itemRepository.findViewById(id);
+            if (view.isPresent() && view.get().sku().equals(sku)) {
+                return view;
+            }
+            skuIndex.remove(id);
+        }
+        Optional<ItemView> view = itemRepository.findViewBySku(sku);
+        view.ifPresent(found -> skuIndex.put(found.id(), found.sku()));
+        return view;
+    }
+    
+    /**
+     * Find items for several SKUs with one statement (duplicates collapse)
+     */
+    public SkuLookup findBySkus(List<String> skus) {
+        Set<String> wanted = new LinkedHashSet<>(skus);
+        Map<String, ItemView> found = new HashMap<>();
+        for (ItemView view : itemRepository.findViewsBySku(wanted)) {
+            found.put(view.sku(), view);
+            skuIndex.put(view.id(), view.sku());
+        }
+        List<ItemView> items = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String sku : wanted) {
+            ItemView view = found.get(sku);
+            if (view != null) {
+                items.add(view);
+            } else {
+                missing.add(sku);
+            }
+        }
+        return new SkuLookup(items, missing);
+    }
+    
+    /**
+     * Whether the SKU is known to be taken. Most new SKUs are cleared by
+     * the Bloom filter without a query; an index hit is confirmed against
+     * the row, and a stale entry is dropped. The unique constraint still
+     * catches what the index has not seen.
+     */
+    public boolean isSkuTaken(String sku) {
+        if (!skuIndex.isTaken(sku)) {
+            return false;
+        }
+        Long id = skuIndex.idOf(sku);
+        if (id == null) {
+            return false;
+        }
+        Optional<ItemView> view = itemRepository.findViewById(id);
+        if (view.isPresent() && view.get().sku().equals(sku)) {
+            return true;
+        }
+        skuIndex.remove(id);
+        // Renamed: index it under its current SKU
+        view.ifPresent(found -> skuIndex.put(found.id(), found.sku()));
+        return false;
+    }
+    
+    /**
+     * Whether a failed write hit a unique constraint (SQLSTATE 23505)
+     */
+    public static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && "23505".equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Validator of one item (metadata query, no entity)
+     */
+    public Optional<Revision> findRevision(Long id) {
+        return itemRepository.findRevision(id);
+    }
+    
+    /**
+     * Validator of the item list, optionally by category
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<Revision> findListRevision(Long categoryId) {
+        return itemRepository.findListRevision(categoryId);
+    }
+    
+    /**
+     * Validator of the item list from memory (no query): count and last
+     * change from CategoryTotals, the embedded categories from the catalog
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<Revision> cachedListRevision(Long categoryId) {
+        if (categoryId == null) {
+            return Optional.of(Revision.of(categoryTotals.count(null), categoryTotals.lastUpdated(null),
+                    categoryService.cachedListRevision().lastModified()));
+        }
+        return categoryService.findById(categoryId).map(category -> Revision.of(categoryTotals.count(categoryId),
+                categoryTotals.lastUpdated(categoryId), category.getUpdatedAt()));
+    }
+    
+    /**
+     * Apply a merge patch (single UPDATE ... RETURNING, no prior read)
+     *
+     * @return empty if the item does not exist
+     */
+    public Optional<PatchResult<ItemView>> patch(Long id, ItemPatch patch) {
+        if (patch.isEmpty()) {
+            return itemRepository.findViewById(id).map(view -> new PatchResult<>(view, false));
+        }
+        Optional<PatchResult<ItemView>> result = itemRepository.patch(id, patch);
+        result.filter(PatchResult::changed).ifPresent(patched -> index(ItemSummary.of(patched.value()), patched.value().updatedAt()));
+        return result;
+    }
+    
+    /**
+     * Adjust stock with one conditional UPDATE (no read, no lost updates)
+     */
+    public StockResult adjustStock(Long id, StockAdjustment adjustment) {
+        return indexStock(id, adjustment, itemRepository.adjustStock(id, adjustment.delta(), adjustment.required()));
+    }
+    
+    /**
+     * Whether adjustments of this item go through the {@link StockCombiner}
+     */
+    public boolean isHotSku(Long id) {
+        return stockCombiner.isHot(id);
+    }
+    
+    /**
+     * Adjust the stock of a hot SKU in the next combined UPDATE
+     */
+    public CompletableFuture<StockResult> adjustHotStock(Long id, StockAdjustment adjustment) {
+        // Callers of a window complete in order, the last one leaves the final stock
+        return stockCombiner.submit(id, adjustment).thenApply(result -> indexStock(id, adjustment, result));
+    }
+    
+    // The totals take the delta itself: concurrent adjustments may reach
+    // the search index out of order, their deltas still add up
+    private StockResult indexStock(Long id, StockAdjustment adjustment, StockResult result) {
+        if (result.outcome() == StockResult.Outcome.APPLIED) {
+            UnitOfWork.afterCommit(() ->
+                    categoryTotals.adjustStock(searchIndex.updateStock(id, result.stock()), adjustment.delta(),
+                            result.updatedAt()));
+        }
+        return result;
+    }
+    
+    // Applied once committed; the search index hands back the previous
+    // row for the totals, updatedAt is the one the row was written with
+    private void index(ItemSummary item, LocalDateTime updatedAt) {
+        UnitOfWork.afterCommit(() -> {
+            skuIndex.put(item.id(), item.sku());
+            categoryTotals.move(searchIndex.put(item), item, updatedAt);
+        });
+    }
+    
+    /**
+     * Search names and SKUs through the in-memory trigram index (no query)
+     */
+    public SearchResult search(String query, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        return searchIndex.search(query, categoryId, minPrice, maxPrice, limit);
+    }
+    
     /**
      * Create or update item
      */
     public Item save(Item item) {
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        index(ItemSummary.of(saved), saved.getUpdatedAt());
+        return saved;
+    }
+    
+    /**
+     * Insert new items, BULK_CHUNK_SIZE rows per transaction.
+     * A chunk that fails is retried row by row so a bad row only fails
+     * itself. Returns one entry per item: null on success (the item then
+     * carries its id), the error message otherwise.
+     */
+    public List<String> createAll(List<Item> items) {
+        List<String> errors = new ArrayList<>(Collections.nCopies(items.size(), null));
+        for (int from = 0; from < items.size(); from += BULK_CHUNK_SIZE) {
+            List<Item> chunk = items.subList(from, Math.min(from + BULK_CHUNK_SIZE, items.size()));
+            try {
+                itemRepository.saveAll(chunk);
+            } catch (RuntimeException chunkFailure) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    Item item = chunk.get(i);
+                    // Ids handed out by the rolled-back chunk must not be reused
+                    item.setId(null);
+                    try {
+                        itemRepository.save(item);
+                    } catch (RuntimeException e) {
+                        item.setId(null);
+                        errors.set(from + i, rootMessage(e));
+                    }
+                }
+            }
+        }
+        for (Item item : items) {
+            if (item.getId() != null) {
+                index(ItemSummary.of(item), item.getUpdatedAt());
+            }
+        }
+        return errors;
+    }
+    
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
     }
     
     /**
@@ -53,6 +377,10 @@ public class ItemService {
      */
     public void delete(Long id) {
         itemRepository.delete(id);
+        UnitOfWork.afterCommit(() -> {
+            skuIndex.remove(id);
+            categoryTotals.move(searchIndex.remove(id), null, null);
+        });
     }
     
     /**
@@ -61,4 +389,27 @@ public class ItemService {
     public boolean exists(Long id) {
         return itemRepository.existsById(id);
     }
+    
+    /**
+     * Build a cursor page from size + 1 fetched rows; the extra row only
+     * tells whether a next page exists
+     */
+    private PageResponse<ItemView> cursorPage(List<ItemView> items, int size) {
+        if (items.size() <= size) {
+            return new PageResponse<>(items, size, null);
+        }
+        List<ItemView> content = items.subList(0, size);
+        return new PageResponse<>(content, size, Cursor.encode(content.get(size - 1).id()));
+    }
+    
+    /**
+     * Let offset clients switch to keyset pagination from any page
+     */
+    private PageResponse<ItemView> withNextCursor(PageResponse<ItemView> page) {
+        List<ItemView> content = page.getContent();
+        if (!page.isLast() && !content.isEmpty()) {
+            page.setNextCursor(Cursor.encode(content.get(content.size() - 1).id()));
+        }
+        return page;
+    }
 }
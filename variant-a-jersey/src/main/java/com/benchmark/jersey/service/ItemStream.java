@@ -0,0 +1,410 @@
+package com.benchmark.jersey.service;
+
+import com.benchmark.jersey.config.ServerThreading;
+import com.benchmark.jersey.dto.Change;
+import com.benchmark.jersey.dto.ItemSummary;
+import com.benchmark.jersey.dto.ItemView;
+import com.benchmark.jersey.repository.ItemNotifications;
+import com.benchmark.jersey.repository.ItemRepository;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes item changes to Server-Sent Events subscribers (GET
+ * /items/stream), driven by the notifications every item write sends
+ * (see {@link ItemNotifications}).
+ * <p>
+ * One dedicated connection LISTENs. Its thread takes whatever has arrived,
+ * resolves it to current rows with one query per RESOLVE_BATCH ids
+ * (missing rows are deletes) and hands each change to the subscribers
+ * whose category matches. Nothing is written from that thread or from
+ * request threads: every subscriber has a mailbox keyed by item id, so
+ * one that falls behind gets the latest row of each item instead of every
+ * step. Sink writes block while the client's socket is full, so each
+ * drain runs on a sender thread of its own (a virtual thread with
+ * THREAD_MODE=virtual; otherwise a pool keeping ITEM_STREAM_SENDERS
+ * threads and growing past them) and a slow client only ever holds its
+ * own sender.
+ * <p>
+ * A "reset" event tells a subscriber changes may have been missed and
+ * should be caught up from GET /items/changes. It is sent after the
+ * connection is lost or items are imported, and replaces the mailbox of a
+ * subscriber more than ITEM_STREAM_MAX_PENDING items behind (further
+ * changes are skipped until it goes out). A subscriber whose connection
+ * fails, or whose write has not returned for STALL_SECONDS, is dropped:
+ * the heartbeat aborts its connection, which fails the blocked write
+ * (closing the sink would wait for it), and the drain then closes the sink.
+ * Notifications carry the category after the write, so a category
+ * subscriber does not see an item move out. Bound as a singleton.
+ */
+public class ItemStream {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemStream.class);
+
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 2000;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long STALL_SECONDS = 30;
+    // Ids per resolving query
+    private static final int RESOLVE_BATCH = 1000;
+
+    // Mailbox keys of the non-item events (item ids are positive)
+    private static final Long HEARTBEAT = 0L;
+    private static final Long RESET = -1L;
+
+    private final ItemRepository itemRepository;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxPending;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+
+    // Event factory, the same for every request
+    private volatile Sse sse;
+    private volatile boolean running;
+    private Thread listener;
+
+    @Inject
+    public ItemStream(ItemRepository itemRepository, EntityManagerFactory emf, ServerThreading threading) {
+        this.itemRepository = itemRepository;
+        // Same database and credentials as the pool (getProperties masks them)
+        Map<String, Object> settings = emf.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .requireService(ConfigurationService.class)
+                .getSettings();
+        this.url = (String) settings.get(AvailableSettings.JAKARTA_JDBC_URL);
+        this.user = (String) settings.get(AvailableSettings.JAKARTA_JDBC_USER);
+        this.password = (String) settings.get(AvailableSettings.JAKARTA_JDBC_PASSWORD);
+        this.maxPending = Integer.parseInt(System.getenv().getOrDefault("ITEM_STREAM_MAX_PENDING", "1000"));
+        ExecutorService writers = threading.writerThreads();
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = writers != null ? writers : new ThreadPoolExecutor(
+                Integer.parseInt(System.getenv().getOrDefault("ITEM_STREAM_SENDERS", "4")), Integer.MAX_VALUE,
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> daemon(r, "item-stream-sender-" + threads.incrementAndGet()));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "item-stream-heartbeat"));
+    }
+
+    /**
+     * Start listening (once the container is up)
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listener = daemon(this::listen, "item-stream-listener");
+        listener.start();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop listening and close every subscriber
+     */
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    /**
+     * Register a subscriber, optionally to one category; returns at once
+     *
+     * @param disconnect aborts the client's connection without waiting for
+     *                   pending writes
+     */
+    public void subscribe(SseEventSink sink, Sse sse, Long categoryId, Runnable disconnect) {
+        this.sse = sse;
+        Subscriber subscriber = new Subscriber(sink, categoryId, disconnect);
+        subscribers.add(subscriber);
+        // Commits the response headers
+        subscriber.offer(HEARTBEAT, sse.newEventBuilder().comment("subscribed").build());
+    }
+
+    /**
+     * Tell every subscriber changes may have been missed
+     */
+    public void reset() {
+        Sse factory = sse;
+        if (factory == null) {
+            return;
+        }
+        OutboundSseEvent event = resetEvent(factory);
+        subscribers.forEach(subscriber -> subscriber.offer(RESET, event));
+    }
+
+    private static OutboundSseEvent resetEvent(Sse factory) {
+        return factory.newEventBuilder()
+                .name("reset")
+                .data(String.class, "resync from /items/changes")
+                .build();
+    }
+
+    private void listen() {
+        boolean listened = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, user, password);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + ItemNotifications.CHANNEL);
+                if (listened) {
+                    reset();
+                }
+                listened = true;
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        publish(notifications);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Item stream lost its notifications, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve notified ids to their current rows and queue the changes
+     */
+    private void publish(PGNotification[] notifications) {
+        Sse factory = sse;
+        if (factory == null || subscribers.isEmpty()) {
+            return;
+        }
+        // Item id -> category notified with it (the category of a deleted item)
+        Map<Long, Long> written = new LinkedHashMap<>();
+        for (PGNotification notification : notifications) {
+            String[] parts = notification.getParameter().split(":");
+            if (parts.length == 3 && parts[0].equals("item")) {
+                written.put(Long.valueOf(parts[1]), Long.valueOf(parts[2]));
+            }
+        }
+        List<Long> ids = new ArrayList<>(written.keySet());
+        for (int from = 0; from < ids.size(); from += RESOLVE_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(from + RESOLVE_BATCH, ids.size()));
+            Map<Long, ItemView> rows = new HashMap<>();
+            for (ItemView view : itemRepository.findViewsById(batch)) {
+                rows.put(view.id(), view);
+            }
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            for (Long id : batch) {
+                ItemView view = rows.get(id);
+                Change<ItemSummary> change = view != null
+                        ? new Change<>(id, view.updatedAt(), false, ItemSummary.of(view))
+                        : new Change<>(id, now, true, null);
+                Long categoryId = view != null ? view.category().id() : written.get(id);
+                OutboundSseEvent event = factory.newEventBuilder()
+                        .name(change.deleted() ? "delete" : "item")
+                        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                        .data(Change.class, change)
+                        .build();
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.categoryId == null || subscriber.categoryId.equals(categoryId)) {
+                        subscriber.offer(id, event);
+                    }
+                }
+            }
+        }
+    }
+
+    // Pings idle subscribers (a busy one is already writing) and drops stalled ones
+    private void heartbeat() {
+        Sse factory = sse;
+        if (factory == null) {
+            return;
+        }
+        OutboundSseEvent ping = factory.newEventBuilder().comment("ping").build();
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isStalled(now)) {
+                subscriber.close();
+            } else if (subscriber.isIdle()) {
+                subscriber.offer(HEARTBEAT, ping);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * One connection: the latest event per item not yet written, in the
+     * order items first changed, drained by at most one sender at a time
+     */
+    private final class Subscriber {
+
+        final SseEventSink sink;
+        final Long categoryId;
+        private final Runnable disconnect;
+        private final Map<Long, OutboundSseEvent> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+        private boolean closed;
+        // The mailbox holds a reset, item changes wait for the resync
+        private boolean overflowed;
+        // System.nanoTime() when the running drain started, 0 if none
+        private volatile long drainingSince;
+        // A drain is running; close() leaves the sink to it
+        private boolean writing;
+
+        Subscriber(SseEventSink sink, Long categoryId, Runnable disconnect) {
+            this.sink = sink;
+            this.categoryId = categoryId;
+            this.disconnect = disconnect;
+        }
+
+        synchronized boolean isIdle() {
+            return !scheduled;
+        }
+
+        boolean isStalled(long now) {
+            long since = drainingSince;
+            return since != 0 && now - since > TimeUnit.SECONDS.toNanos(STALL_SECONDS);
+        }
+
+        void offer(Long key, OutboundSseEvent event) {
+            boolean schedule;
+            synchronized (this) {
+                if (closed || (overflowed && key > 0)) {
+                    return;
+                }
+                if (pending.size() >= maxPending && !pending.containsKey(key)) {
+                    pending.clear();
+                    pending.put(RESET, resetEvent(sse));
+                    overflowed = true;
+                } else {
+                    pending.put(key, event);
+                }
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            List<OutboundSseEvent> batch;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                overflowed = false;
+                writing = true;
+            }
+            drainingSince = System.nanoTime();
+            boolean failed = false;
+            for (OutboundSseEvent event : batch) {
+                if (!send(event)) {
+                    failed = true;
+                    break;
+                }
+            }
+            drainingSince = 0;
+            boolean closedMeanwhile;
+            boolean again;
+            synchronized (this) {
+                writing = false;
+                closedMeanwhile = closed;
+                again = !closed && !failed && !pending.isEmpty();
+                scheduled = again;
+            }
+            if (closedMeanwhile) {
+                // close() aborted the connection and left the sink to this drain
+                closeSink();
+            } else if (failed) {
+                close();
+            } else if (again) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // Jersey writes synchronously: a failure is known on return
+        private boolean send(OutboundSseEvent event) {
+            if (sink.isClosed()) {
+                return false;
+            }
+            try {
+                return !sink.send(event).toCompletableFuture().isCompletedExceptionally();
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        }
+
+        // A write may be blocked on the client: abort the connection to fail
+        // it, the drain closes the sink when it returns
+        void close() {
+            boolean draining;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+                draining = writing;
+            }
+            subscribers.remove(this);
+            if (draining) {
+                disconnect.run();
+            } else {
+                closeSink();
+            }
+        }
+
+        private void closeSink() {
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                log.debug("Closing an item stream subscriber failed: {}", e.getMessage());
+            }
+        }
+    }
+}
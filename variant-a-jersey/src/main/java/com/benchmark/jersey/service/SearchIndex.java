@@ -0,0 +1,515 @@
+package com.benchmark.jersey.service;
+
+import com.benchmark.jersey.dto.ItemSummary;
+import com.benchmark.jersey.dto.SearchResult;
+import com.benchmark.jersey.repository.ItemRepository;
+import jakarta.inject.Inject;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory trigram index over item name and SKU, plus the columns the
+ * search filters and facets need (category, price in cents, stock).
+ * Built at startup from ItemRepository and written through by the item
+ * and category services; imports reload it.
+ * <p>
+ * Items are numbered documents in parallel arrays. Each lower-cased
+ * trigram maps to the ascending list of documents containing it; a query
+ * intersects the lists of its own trigrams (smallest first) and confirms
+ * each candidate with a substring check, so the result is exactly
+ * {@code name ILIKE '%q%' OR sku ILIKE '%q%'}; an empty query matches
+ * everything. Shorter queries are rejected by the resource (they would
+ * scan every document). A changed name or SKU retires the
+ * document and appends a new one; once retired documents outnumber half
+ * of all documents the arrays and lists are rebuilt without them.
+ * <p>
+ * Searches share a read lock; writers are serialized and hold the write
+ * lock only while mutating. Bound as a singleton.
+ */
+public class SearchIndex {
+
+    /** Shortest non-empty query the trigram lists can answer */
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private static final int MIN_COMPACTION = 1024;
+    /** Lower bounds of the price buckets in cents; the last one is open-ended */
+    private static final long[] PRICE_EDGES = {0, 1_000, 5_000, 10_000, 25_000, 50_000, 100_000};
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    @Inject
+    private ItemRepository itemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Documents documents = new Documents(16);
+
+    /**
+     * Load (or reload) the index from the database; searches keep using
+     * the previous content until the new one is complete
+     */
+    public synchronized void load() {
+        Documents fresh = new Documents(Math.max(16, size()));
+        itemRepository.forEachSummary(fresh::add);
+        lock.writeLock().lock();
+        try {
+            documents = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a created or updated item
+     *
+     * @return the item's previous row, null if it was not indexed
+     */
+    public synchronized ItemSummary put(ItemSummary item) {
+        lock.writeLock().lock();
+        try {
+            Documents d = documents;
+            int doc = d.docOf.get(item.id());
+            ItemSummary previous = doc >= 0 ? d.summary(doc) : null;
+            if (doc >= 0 && item.name().equals(d.names[doc]) && item.sku().equals(d.skus[doc])) {
+                // Same text, same postings: update the columns in place
+                d.categories[doc] = d.ordinal(item.categoryId());
+                d.prices[doc] = cents(item.price(), RoundingMode.HALF_UP);
+                d.stocks[doc] = item.stock();
+                return previous;
+            }
+            if (doc >= 0) {
+                d.retire(doc);
+            }
+            d.add(item);
+            compactIfNeeded();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the item's previous row, null if it is not indexed
+     */
+    public synchronized ItemSummary updateStock(Long id, int stock) {
+        lock.writeLock().lock();
+        try {
+            int doc = documents.docOf.get(id);
+            if (doc < 0) {
+                return null;
+            }
+            ItemSummary previous = documents.summary(doc);
+            documents.stocks[doc] = stock;
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move every item of a category to another one (category delete with
+     * REASSIGN; one pass over the category column)
+     */
+    public synchronized void reassignCategory(Long from, Long to) {
+        lock.writeLock().lock();
+        try {
+            Documents d = documents;
+            int source = d.ordinals.get(from);
+            if (source < 0) {
+                return;
+            }
+            int target = d.ordinal(to);
+            for (int doc = 0; doc < d.docs; doc++) {
+                if (d.categories[doc] == source) {
+                    d.categories[doc] = target;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every item of a category (its items were deleted; one pass
+     * over the category column)
+     *
+     * @param removed receives the id of each item removed
+     */
+    public synchronized void removeCategory(Long categoryId, LongConsumer removed) {
+        lock.writeLock().lock();
+        try {
+            Documents d = documents;
+            int ordinal = d.ordinals.get(categoryId);
+            if (ordinal < 0) {
+                return;
+            }
+            for (int doc = 0; doc < d.docs; doc++) {
+                if (d.categories[doc] == ordinal) {
+                    d.docOf.remove(d.itemIds[doc]);
+                    d.retire(doc);
+                    removed.accept(d.itemIds[doc]);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the item's last row, null if it was not indexed
+     */
+    public synchronized ItemSummary remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            int doc = documents.docOf.remove(id);
+            if (doc < 0) {
+                return null;
+            }
+            ItemSummary previous = documents.summary(doc);
+            documents.retire(doc);
+            compactIfNeeded();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.docOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Items whose name or SKU contains the query (case-insensitive; empty
+     * matches everything), filtered by category and price range
+     * (inclusive), with facet counts
+     *
+     * @param limit number of hits returned, lowest ids first
+     */
+    public SearchResult search(String query, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        String needle = lowerCase(query == null ? "" : query.strip());
+        long min = minPrice == null ? Long.MIN_VALUE : cents(minPrice, RoundingMode.CEILING);
+        long max = maxPrice == null ? Long.MAX_VALUE : cents(maxPrice, RoundingMode.FLOOR);
+
+        lock.readLock().lock();
+        try {
+            Documents d = documents;
+            int[] candidates = needle.length() >= MIN_QUERY_LENGTH ? d.candidates(needle) : null;
+            int count = candidates == null ? d.docs : candidates.length;
+            // A single trigram is matched exactly by its list
+            boolean verify = needle.length() > MIN_QUERY_LENGTH || (candidates == null && !needle.isEmpty());
+            // -1 (unknown category) matches no document
+            int category = categoryId == null ? -1 : d.ordinals.get(categoryId);
+
+            int[] categoryCounts = new int[d.categoryIds.length];
+            int[] priceCounts = new int[PRICE_EDGES.length];
+            int total = 0;
+            int inStock = 0;
+            // Max-heap on item id holding the lowest `limit` ids seen
+            PriorityQueue<Integer> top = new PriorityQueue<>(
+                    Comparator.comparingLong((Integer doc) -> d.itemIds[doc]).reversed());
+
+            for (int i = 0; i < count; i++) {
+                int doc = candidates == null ? i : candidates[i];
+                if (d.retired.get(doc) || verify && d.texts[doc].indexOf(needle) < 0) {
+                    continue;
+                }
+                boolean inCategory = categoryId == null || d.categories[doc] == category;
+                long price = d.prices[doc];
+                boolean inPrice = price >= min && price <= max;
+                if (inPrice) {
+                    categoryCounts[d.categories[doc]]++;
+                }
+                if (inCategory) {
+                    priceCounts[bucket(price)]++;
+                }
+                if (!inCategory || !inPrice) {
+                    continue;
+                }
+                total++;
+                if (d.stocks[doc] > 0) {
+                    inStock++;
+                }
+                if (top.size() < limit) {
+                    top.add(doc);
+                } else if (limit > 0 && d.itemIds[doc] < d.itemIds[top.peek()]) {
+                    top.poll();
+                    top.add(doc);
+                }
+            }
+
+            List<ItemSummary> items = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                items.add(d.summary(top.poll()));
+            }
+            items.sort(Comparator.comparing(ItemSummary::id));
+            return new SearchResult(total, items, new SearchResult.Facets(
+                    categoryFacet(d.categoryIds, categoryCounts), priceFacet(priceCounts),
+                    new SearchResult.StockCount(inStock, total - inStock)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        Documents d = documents;
+        if (d.retiredCount > Math.max(MIN_COMPACTION, d.docs / 2)) {
+            Documents compacted = new Documents(d.docs - d.retiredCount);
+            for (int doc = 0; doc < d.docs; doc++) {
+                if (!d.retired.get(doc)) {
+                    compacted.add(d.summary(doc));
+                }
+            }
+            documents = compacted;
+        }
+    }
+
+    // Largest count first, then category id
+    private static List<SearchResult.CategoryCount> categoryFacet(long[] categoryIds, int[] counts) {
+        List<SearchResult.CategoryCount> facet = new ArrayList<>();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                facet.add(new SearchResult.CategoryCount(categoryIds[ordinal], counts[ordinal]));
+            }
+        }
+        facet.sort(Comparator.comparingInt(SearchResult.CategoryCount::count).reversed()
+                .thenComparing(SearchResult.CategoryCount::categoryId));
+        return facet;
+    }
+
+    private static List<SearchResult.PriceBucket> priceFacet(int[] counts) {
+        List<SearchResult.PriceBucket> facet = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal max = i + 1 < PRICE_EDGES.length ? BigDecimal.valueOf(PRICE_EDGES[i + 1], 2) : null;
+            facet.add(new SearchResult.PriceBucket(BigDecimal.valueOf(PRICE_EDGES[i], 2), max, counts[i]));
+        }
+        return facet;
+    }
+
+    private static int bucket(long cents) {
+        int bucket = 0;
+        while (bucket + 1 < PRICE_EDGES.length && cents >= PRICE_EDGES[bucket + 1]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).max(MIN_CENTS).min(MAX_CENTS).longValue();
+    }
+
+    // Per char, like the indexed text
+    private static String lowerCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    /**
+     * Document columns and postings; guarded by the enclosing lock.
+     * Categories are stored as dense ordinals so facets count into an array.
+     */
+    private static final class Documents {
+
+        long[] itemIds;
+        int[] categories;
+        long[] prices;
+        int[] stocks;
+        String[] names;
+        String[] skus;
+        // Lower-cased "name\0sku", what queries are matched against
+        String[] texts;
+        int docs;
+        final BitSet retired = new BitSet();
+        int retiredCount;
+        final LongIntMap docOf;
+        final Map<Long, Postings> postings = new HashMap<>();
+        long[] categoryIds = new long[0];
+        final LongIntMap ordinals = new LongIntMap(256);
+
+        Documents(int capacity) {
+            capacity = Math.max(16, capacity);
+            itemIds = new long[capacity];
+            categories = new int[capacity];
+            prices = new long[capacity];
+            stocks = new int[capacity];
+            names = new String[capacity];
+            skus = new String[capacity];
+            texts = new String[capacity];
+            docOf = new LongIntMap(capacity);
+        }
+
+        void add(ItemSummary item) {
+            if (docs == itemIds.length) {
+                int capacity = docs + (docs >> 1);
+                itemIds = Arrays.copyOf(itemIds, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                stocks = Arrays.copyOf(stocks, capacity);
+                names = Arrays.copyOf(names, capacity);
+                skus = Arrays.copyOf(skus, capacity);
+                texts = Arrays.copyOf(texts, capacity);
+            }
+            int doc = docs++;
+            itemIds[doc] = item.id();
+            categories[doc] = ordinal(item.categoryId());
+            prices[doc] = cents(item.price(), RoundingMode.HALF_UP);
+            stocks[doc] = item.stock();
+            names[doc] = item.name();
+            skus[doc] = item.sku();
+            texts[doc] = lowerCase(item.name() + '\0' + item.sku());
+            docOf.put(item.id(), doc);
+            for (long key : trigrams(texts[doc])) {
+                postings.computeIfAbsent(key, k -> new Postings()).add(doc);
+            }
+        }
+
+        void retire(int doc) {
+            retired.set(doc);
+            retiredCount++;
+            // Never matches a category filter or facet again
+            categories[doc] = -1;
+        }
+
+        int ordinal(Long categoryId) {
+            int ordinal = ordinals.get(categoryId);
+            if (ordinal < 0) {
+                ordinal = categoryIds.length;
+                categoryIds = Arrays.copyOf(categoryIds, ordinal + 1);
+                categoryIds[ordinal] = categoryId;
+                ordinals.put(categoryId, ordinal);
+            }
+            return ordinal;
+        }
+
+        ItemSummary summary(int doc) {
+            return new ItemSummary(itemIds[doc], skus[doc], names[doc], BigDecimal.valueOf(prices[doc], 2),
+                    stocks[doc], categoryIds[categories[doc]]);
+        }
+
+        /**
+         * Ascending candidates for the needle: the trigram lists are
+         * intersected smallest first, stopping once a list no longer
+         * removes a tenth of the candidates (the substring check does the
+         * rest more cheaply than further intersections)
+         */
+        int[] candidates(String needle) {
+            long[] keys = trigrams(needle);
+            Postings[] lists = new Postings[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                lists[i] = postings.get(keys[i]);
+                if (lists[i] == null) {
+                    return new int[0];
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt((Postings list) -> list.size));
+
+            int[] result = Arrays.copyOf(lists[0].docs, lists[0].size);
+            for (int l = 1; l < lists.length && result.length > 0; l++) {
+                int[] narrowed = lists[l].retain(result);
+                boolean selective = narrowed.length < result.length - result.length / 10;
+                result = narrowed;
+                if (!selective) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        // Distinct trigram keys; the \0 separator keeps name and SKU apart
+        private static long[] trigrams(String text) {
+            long[] keys = new long[Math.max(0, text.length() - 2)];
+            int count = 0;
+            for (int i = 0; i + 2 < text.length(); i++) {
+                char a = text.charAt(i);
+                char b = text.charAt(i + 1);
+                char c = text.charAt(i + 2);
+                if (a != 0 && b != 0 && c != 0) {
+                    keys[count++] = trigram(a, b, c);
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || keys[distinct - 1] != keys[i]) {
+                    keys[distinct++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(keys, distinct);
+        }
+    }
+
+    /**
+     * Ascending document numbers (documents are only ever appended)
+     */
+    private static final class Postings {
+
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+            }
+            docs[size++] = doc;
+        }
+
+        /**
+         * The given ascending documents that are also in this list
+         */
+        int[] retain(int[] candidates) {
+            int[] result = new int[candidates.length];
+            int found = 0;
+            int cursor = 0;
+            for (int doc : candidates) {
+                cursor = seek(cursor, doc);
+                if (cursor == size) {
+                    break;
+                }
+                if (docs[cursor] == doc) {
+                    result[found++] = doc;
+                }
+            }
+            return Arrays.copyOf(result, found);
+        }
+
+        /**
+         * First position at or after {@code from} holding a document
+         * >= doc (size if none): gallop, then binary search the last step
+         */
+        int seek(int from, int doc) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && docs[high] < doc) {
+                low = high + 1;
+                high = from + step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(docs, low, Math.min(high + 1, size), doc);
+            return at >= 0 ? at : -at - 1;
+        }
+    }
+}
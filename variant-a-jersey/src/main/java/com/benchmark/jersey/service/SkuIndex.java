@@ -0,0 +1,97 @@
+package com.benchmark.jersey.service;
+
+import com.benchmark.jersey.repository.ItemRepository;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory SKU -> item id index with a Bloom filter in front of it.
+ * Loaded at startup and written through by the item and category
+ * services (category cascades drop the ids the search index held for the
+ * category); imports, which do not report what they touched, reload it. Lookups that miss or
+ * hit a stale entry fall back to the database, so the index only ever
+ * saves queries.
+ * <p>
+ * On create, the Bloom filter answers "certainly new" for most SKUs
+ * without touching the map; only probable duplicates are checked against
+ * the index, and a confirmed one is rejected before any transaction
+ * starts. The unique constraint stays the final guard.
+ * Bound as a singleton.
+ */
+public class SkuIndex {
+
+    private static final int MIN_CAPACITY = 1024;
+
+    @Inject
+    private ItemRepository itemRepository;
+
+    private volatile Map<String, Long> ids = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> skus = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom = new BloomFilter(MIN_CAPACITY);
+    private int added;
+
+    /**
+     * Load (or reload) the index from the database
+     */
+    public synchronized void load() {
+        Map<String, Long> freshIds = new ConcurrentHashMap<>();
+        Map<Long, String> freshSkus = new ConcurrentHashMap<>();
+        itemRepository.forEachSku((id, sku) -> {
+            freshIds.put(sku, id);
+            freshSkus.put(id, sku);
+        });
+        ids = freshIds;
+        skus = freshSkus;
+        rebuildBloom();
+    }
+
+    /**
+     * Item id for a SKU, null if unknown (may be stale, verify the row)
+     */
+    public Long idOf(String sku) {
+        return ids.get(sku);
+    }
+
+    /**
+     * Whether another item already holds the SKU, without a query
+     */
+    public boolean isTaken(String sku) {
+        return bloom.mightContain(sku) && ids.containsKey(sku);
+    }
+
+    /**
+     * Record an item's current SKU (created, or possibly renamed)
+     */
+    public synchronized void put(Long id, String sku) {
+        String previous = skus.put(id, sku);
+        if (previous != null && !previous.equals(sku)) {
+            ids.remove(previous, id);
+        }
+        ids.put(sku, id);
+        bloom.add(sku);
+        if (++added > bloom.capacity()) {
+            rebuildBloom();
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String sku = skus.remove(id);
+        if (sku != null) {
+            ids.remove(sku, id);
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    // Removed SKUs leave bits behind, so rebuild rather than grow
+    private void rebuildBloom() {
+        BloomFilter fresh = new BloomFilter(Math.max(MIN_CAPACITY, ids.size() * 2));
+        ids.keySet().forEach(fresh::add);
+        bloom = fresh;
+        added = ids.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.benchmark.jersey.bench;
+
+import com.benchmark.jersey.config.ItemJsonWriter;
+import com.benchmark.jersey.config.JacksonConfig;
+import com.benchmark.jersey.dto.CategoryView;
+import com.benchmark.jersey.dto.ItemView;
+import com.benchmark.jersey.dto.PageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offline comparison of the two JSON paths for a PageResponse&lt;ItemView&gt;:
+ * the reflective ObjectMapper and {@link ItemJsonWriter}. Checks that both
+ * produce identical bytes, then reports ns/op and heap bytes allocated per
+ * op on this thread.
+ * <p>
+ * Lives with the test sources so the server jar ships no benchmark code;
+ * surefire does not pick it up. After mvn package:
+ * <p>
+ * java -cp target/test-classes:target/variant-a-jersey-1.0.0.jar com.benchmark.jersey.bench.JsonWriterBenchmark [pageSize] [seconds]
+ */
+public final class JsonWriterBenchmark {
+
+    private JsonWriterBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int pageSize = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ObjectMapper mapper = new JacksonConfig().getContext(Object.class);
+        ItemJsonWriter writer = new ItemJsonWriter(mapper);
+        PageResponse<ItemView> page = samplePage(pageSize);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+        byte[] expected = mapper.writeValueAsBytes(page);
+        writer.write(page, out);
+        if (!Arrays.equals(expected, out.toByteArray())) {
+            throw new IllegalStateException("Writers disagree:\n" + new String(expected) + "\n" + out);
+        }
+        System.out.printf("PageResponse<ItemView>, %d items, %d bytes; outputs identical%n",
+                pageSize, expected.length);
+
+        Sink jackson = () -> {
+            out.reset();
+            mapper.writeValue(out, page);
+        };
+        Sink direct = () -> {
+            out.reset();
+            writer.write(page, out);
+        };
+
+        // Warm both paths before measuring either
+        run(jackson, seconds);
+        run(direct, seconds);
+        report("jackson", run(jackson, seconds));
+        report("direct", run(direct, seconds));
+    }
+
+    private static PageResponse<ItemView> samplePage(int size) {
+        List<ItemView> items = new ArrayList<>(size);
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 30, 0, 123_456_000);
+        for (int i = 0; i < size; i++) {
+            CategoryView category = new CategoryView((long) (i % 10 + 1), "CAT" + (i % 10 + 1),
+                    "Category " + (i % 10 + 1), base.minusDays(i % 10));
+            items.add(new ItemView((long) i + 1, "SKU-" + (100_000 + i), "Item number " + i,
+                    BigDecimal.valueOf(199 + i * 37L, 2), i * 3, category,
+                    base.plusSeconds(i * 61L).withNano(i % 3 == 0 ? 0 : 120_000_000 * (i % 3))));
+        }
+        return new PageResponse<>(items, 0, size, 100_000L);
+    }
+
+    private static long[] run(Sink sink, int seconds) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long ops = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 100; i++) {
+                sink.write();
+            }
+            ops += 100;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new long[]{ops, elapsed, allocated};
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("%-8s %10.0f ns/op %10.0f B/op (%d ops)%n",
+                name, (double) result[1] / result[0], (double) result[2] / result[0], result[0]);
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,67 @@
+package com.benchmark.spring.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings sized for a fixed capacity: about 1% false
+ * positives when full (10 bits and 7 probes per entry), never a false
+ * negative, no removal. Reads are lock-free; adds may race with reads.
+ */
+final class BloomFilter {
+
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int PROBES = 7;
+
+    private final AtomicLongArray words;
+    private final int bits;
+    private final int capacity;
+
+    BloomFilter(int capacity) {
+        this.capacity = capacity;
+        this.bits = Math.max(64, capacity * BITS_PER_ENTRY);
+        this.words = new AtomicLongArray((bits + 63) / 64);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        for (int probe = 0; probe < PROBES; probe++) {
+            int bit = bit(hash, probe);
+            long mask = 1L << bit;
+            words.accumulateAndGet(bit >>> 6, mask, (word, set) -> word | set);
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        for (int probe = 0; probe < PROBES; probe++) {
+            int bit = bit(hash, probe);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing: probe i uses h1 + i * h2
+    private int bit(long hash, int probe) {
+        int combined = (int) hash + probe * (int) (hash >>> 32);
+        return Math.floorMod(combined, bits);
+    }
+
+    // FNV-1a over the chars, finished with the murmur3 64-bit mix
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,140 @@
+package com.benchmark.spring.cache;
+
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.entity.Category;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * LISTENs on the catalog_changes channel over one dedicated connection
+ * (outside the Hikari pool) and invalidates the near caches.
+ * Payloads are "item:<id>" or "category:<id>"; a category change also
+ * drops the cached items embedding that category.
+ */
+@Component
+public class CatalogChangeListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeListener.class);
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long RECONNECT_DELAY_MS = 2000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final NearCache<ItemView> itemCache;
+    private final NearCache<Category> categoryCache;
+    private final boolean enabled;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public CatalogChangeListener(DataSourceProperties dataSourceProperties,
+                                 NearCache<ItemView> itemCache,
+                                 NearCache<Category> categoryCache,
+                                 @Value("${catalog.near-cache.enabled:true}") boolean enabled) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.itemCache = itemCache;
+        this.categoryCache = categoryCache;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listenLoop, "catalog-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CatalogChangePublisher.CHANNEL);
+                }
+                // Anything may have changed while we were not listening
+                itemCache.invalidateAll();
+                categoryCache.invalidateAll();
+                log.info("Listening for catalog changes on channel {}", CatalogChangePublisher.CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Anything else would end the thread and leave the caches
+                // serving stale entries with no one invalidating them
+                if (!running) {
+                    return;
+                }
+                log.warn("Catalog change listener disconnected, retrying: {}", e.toString());
+                itemCache.invalidateAll();
+                categoryCache.invalidateAll();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+        // Item payloads from the Jersey variant carry ":<categoryId>" after the id
+        int end = payload.indexOf(':', separator + 1);
+        Long id;
+        try {
+            id = Long.valueOf(payload.substring(separator + 1, end < 0 ? payload.length() : end));
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed catalog notification: {}", payload);
+            return;
+        }
+        switch (payload.substring(0, separator)) {
+            case "item" -> itemCache.invalidate(id);
+            case "category" -> {
+                categoryCache.invalidate(id);
+                itemCache.invalidateIf(item -> id.equals(item.category().id()));
+            }
+            default -> log.debug("Ignoring catalog notification: {}", payload);
+        }
+    }
+}
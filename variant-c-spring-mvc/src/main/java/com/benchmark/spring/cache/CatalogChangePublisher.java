@@ -0,0 +1,33 @@
+package com.benchmark.spring.cache;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits catalog change notifications with pg_notify.
+ * Runs on the caller's transaction connection, so Postgres delivers the
+ * notification only if (and when) the write commits.
+ */
+@Component
+public class CatalogChangePublisher {
+
+    public static final String CHANNEL = "catalog_changes";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogChangePublisher(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void itemChanged(Long id) {
+        publish("item:" + id);
+    }
+
+    public void categoryChanged(Long id) {
+        publish("category:" + id);
+    }
+
+    private void publish(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+}
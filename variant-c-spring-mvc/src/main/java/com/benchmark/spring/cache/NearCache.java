@@ -0,0 +1,98 @@
+package com.benchmark.spring.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Per-instance cache of entities by id.
+ * Entries are dropped when a catalog change notification arrives (see
+ * CatalogChangeListener), which keeps several instances coherent.
+ * Exposes nearcache_gets_total{result=hit|miss}, nearcache_invalidations_total
+ * and nearcache_size on /actuator/prometheus.
+ */
+public class NearCache<V> {
+
+    private final Map<Long, V> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final boolean enabled;
+
+    // Bumped on every invalidation so a load racing with it is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public NearCache(String name, int maxEntries, boolean enabled, MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        this.enabled = enabled;
+        this.hits = Counter.builder("nearcache.gets")
+                .tag("cache", name).tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("nearcache.gets")
+                .tag("cache", name).tag("result", "miss")
+                .register(registry);
+        this.invalidations = Counter.builder("nearcache.invalidations")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("nearcache.size", entries, Map::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    /**
+     * Return the cached value or load it; null results are not cached
+     */
+    public V get(Long id, Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        V value = entries.get(id);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        long seen = generation.get();
+        value = loader.get();
+        if (value != null && entries.size() < maxEntries && generation.get() == seen) {
+            entries.put(id, value);
+        }
+        return value;
+    }
+
+    public boolean contains(Long id) {
+        return enabled && entries.containsKey(id);
+    }
+
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        if (entries.remove(id) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateIf(Predicate<V> predicate) {
+        generation.incrementAndGet();
+        entries.values().removeIf(value -> {
+            if (predicate.test(value)) {
+                invalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.increment(entries.size());
+        entries.clear();
+    }
+}
@@ -0,0 +1,31 @@
+package com.benchmark.spring.cache;
+
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.entity.Category;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Near cache beans for Category and Item
+ */
+@Configuration
+public class NearCacheConfig {
+
+    @Bean
+    public NearCache<Category> categoryCache(
+            @Value("${catalog.near-cache.enabled:true}") boolean enabled,
+            @Value("${catalog.near-cache.category-max-entries:5000}") int maxEntries,
+            MeterRegistry registry) {
+        return new NearCache<>("category", maxEntries, enabled, registry);
+    }
+
+    @Bean
+    public NearCache<ItemView> itemCache(
+            @Value("${catalog.near-cache.enabled:true}") boolean enabled,
+            @Value("${catalog.near-cache.item-max-entries:100000}") int maxEntries,
+            MeterRegistry registry) {
+        return new NearCache<>("item", maxEntries, enabled, registry);
+    }
+}
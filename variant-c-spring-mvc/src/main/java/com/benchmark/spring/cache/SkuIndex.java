@@ -0,0 +1,111 @@
+package com.benchmark.spring.cache;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-instance SKU -> item id index with a Bloom filter in front of it.
+ * Loaded once the application is ready and written through by ItemService.
+ * Entries are hints, not facts: peers rename and delete items without
+ * telling the index, so ItemService confirms every hit through the near
+ * cache (which CatalogChangeListener keeps coherent) and repairs stale
+ * entries. The unique constraint stays the final guard.
+ */
+@Component
+public class SkuIndex {
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+
+    private volatile Map<String, Long> ids = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> skus = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom = new BloomFilter(MIN_CAPACITY);
+    private int added;
+
+    public SkuIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * Load (or reload) the index, streaming the rows in a read-only
+     * transaction so the driver uses a cursor
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Map<String, Long> freshIds = new ConcurrentHashMap<>();
+        Map<Long, String> freshSkus = new ConcurrentHashMap<>();
+        readOnlyTx.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id, sku FROM item");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, row -> {
+            freshIds.put(row.getString(2), row.getLong(1));
+            freshSkus.put(row.getLong(1), row.getString(2));
+        }));
+        ids = freshIds;
+        skus = freshSkus;
+        rebuildBloom();
+    }
+
+    /**
+     * Item id for a SKU, null if unknown (may be stale, verify the row)
+     */
+    public Long idOf(String sku) {
+        return ids.get(sku);
+    }
+
+    /**
+     * Whether the SKU may be taken; false is certain, true needs the
+     * item behind {@link #idOf} confirmed
+     */
+    public boolean mightBeTaken(String sku) {
+        return bloom.mightContain(sku) && ids.containsKey(sku);
+    }
+
+    /**
+     * Record an item's current SKU (created, or possibly renamed)
+     */
+    public synchronized void put(Long id, String sku) {
+        String previous = skus.put(id, sku);
+        if (previous != null && !previous.equals(sku)) {
+            ids.remove(previous, id);
+        }
+        ids.put(sku, id);
+        bloom.add(sku);
+        if (++added > bloom.capacity()) {
+            rebuildBloom();
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String sku = skus.remove(id);
+        if (sku != null) {
+            ids.remove(sku, id);
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    // Removed SKUs leave bits behind, so rebuild rather than grow
+    private void rebuildBloom() {
+        BloomFilter fresh = new BloomFilter(Math.max(MIN_CAPACITY, ids.size() * 2));
+        ids.keySet().forEach(fresh::add);
+        bloom = fresh;
+        added = ids.size();
+    }
+}
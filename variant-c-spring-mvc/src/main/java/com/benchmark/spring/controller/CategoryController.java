@@ -1,17 +1,28 @@
 package com.benchmark.spring.controller;
 
+import com.benchmark.spring.dto.CategoryPatch;
+import com.benchmark.spring.dto.DeletePolicy;
+import com.benchmark.spring.dto.MergePatch;
+import com.benchmark.spring.dto.Revision;
+import com.benchmark.spring.dto.SliceResponse;
 import com.benchmark.spring.entity.Category;
 import com.benchmark.spring.service.CategoryService;
 import com.benchmark.spring.service.ItemService;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for Category endpoints
@@ -29,24 +40,44 @@ public class CategoryController {
     }
     
     /**
-     * GET /categories?page=X&size=Y
+     * GET /categories?page=X&size=Y&withTotal=false
+     * withTotal=false returns a count-free slice.
+     * An If-None-Match is checked against the list revision before any row
+     * is read; other responses are tagged from the rows they return.
      */
     @GetMapping
-    public ResponseEntity<Page<Category>> getAll(
+    public ResponseEntity<?> getAll(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            WebRequest webRequest) {
         
         if (page < 0 || size <= 0 || size > 1000) {
             return ResponseEntity.badRequest().build();
         }
         
+        boolean conditional = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (conditional && webRequest.checkNotModified(categoryService.listRevision().tag())) {
+            return null;
+        }
+        
         Pageable pageable = PageRequest.of(page, size);
-        Page<Category> categories = categoryService.findAll(pageable);
-        return ResponseEntity.ok(categories);
+        Slice<Category> categories = withTotal
+                ? categoryService.findAll(pageable)
+                : categoryService.findAllSlice(pageable);
+        Object body = withTotal ? categories : new SliceResponse<>(categories);
+        if (conditional) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok()
+                .eTag(Revision.tag(categories, category -> Stream.of(category.getUpdatedAt())))
+                .body(body);
     }
     
     /**
      * GET /categories/{id}
+     * Served from the near cache and tagged from updated_at; Spring
+     * answers a matching If-None-Match with a 304 and no body
      */
     @GetMapping("/{id}")
     public ResponseEntity<Category> getById(@PathVariable Long id) {
@@ -54,7 +85,7 @@ public class CategoryController {
         if (category == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(category);
+        return ResponseEntity.ok().eTag(Revision.of(1, category.getUpdatedAt()).tag()).body(category);
     }
     
     /**
@@ -87,37 +118,112 @@ public class CategoryController {
     }
     
     /**
-     * DELETE /categories/{id}
+     * PATCH /categories/{id} (application/merge-patch+json)
+     */
+    @PatchMapping(path = "/{id}", consumes = MergePatch.MEDIA_TYPE)
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody JsonNode body) {
+        CategoryPatch patch;
+        try {
+            patch = CategoryPatch.from(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return categoryService.patch(id, patch)
+                .<ResponseEntity<?>>map(result -> ResponseEntity.ok()
+                        .eTag(Revision.of(1, result.value().updatedAt()).tag())
+                        .body(result.value()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * DELETE /categories/{id}?onItems=reject|cascade|reassign&reassignTo=ID
+     * Items are rejected (409), deleted or moved with set-based statements;
+     * onItems defaults to category.delete-policy.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
+    public ResponseEntity<?> delete(
+            @PathVariable Long id,
+            @RequestParam(required = false) String onItems,
+            @RequestParam(required = false) Long reassignTo) {
         if (!categoryService.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
         
-        categoryService.deleteById(id);
-        return ResponseEntity.noContent().build();
+        DeletePolicy policy;
+        try {
+            policy = onItems == null ? categoryService.defaultDeletePolicy() : DeletePolicy.parse(onItems);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (policy == DeletePolicy.REASSIGN
+                && (reassignTo == null || reassignTo.equals(id) || !categoryService.existsById(reassignTo))) {
+            return ResponseEntity.badRequest().body("reassignTo must name another existing category");
+        }
+        
+        return switch (categoryService.deleteById(id, policy, reassignTo)) {
+            case DELETED -> ResponseEntity.noContent().build();
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case HAS_ITEMS -> ResponseEntity.status(HttpStatus.CONFLICT).body("Category has items");
+        };
     }
     
     /**
-     * GET /categories/{id}/items?page=X&size=Y
-     * Relational endpoint
+     * DELETE /categories/{id}/items
+     * Delete every item of the category in one statement
+     */
+    @DeleteMapping("/{id}/items")
+    public ResponseEntity<?> deleteItems(@PathVariable Long id) {
+        if (!categoryService.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(Map.of("deleted", categoryService.deleteItems(id)));
+    }
+    
+    /**
+     * GET /categories/{id}/items?page=X&size=Y&withTotal=false
+     * Relational endpoint, tagged like GET /items?categoryId=Z
      */
     @GetMapping("/{id}/items")
     public ResponseEntity<?> getItems(
             @PathVariable Long id,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            WebRequest webRequest) {
         
-        if (!categoryService.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        if (page < 0 || size <= 0 || size > 1000) {
-            return ResponseEntity.badRequest().build();
+        boolean conditional = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        boolean valid = page >= 0 && size > 0 && size <= 1000;
+        // 404 takes priority over 400
+        if (conditional) {
+            // Also proves the category exists
+            Optional<Revision> revision = itemService.findListRevision(id);
+            if (revision.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!valid) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (webRequest.checkNotModified(revision.get().tag())) {
+                return null;
+            }
+        } else if (!valid || !withTotal) {
+            // No page statement proves the category exists here
+            if (!categoryService.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!valid) {
+                return ResponseEntity.badRequest().build();
+            }
         }
         
         Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(itemService.findByCategoryId(id, pageable));
+        if (withTotal) {
+            // Rows, total and category existence in one statement
+            return itemService.findByCategoryId(id, pageable)
+                    .<ResponseEntity<?>>map(items -> ItemController.listResponse(conditional, items))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+        return ItemController.listResponse(conditional, itemService.findSliceByCategoryId(id, pageable));
     }
 }
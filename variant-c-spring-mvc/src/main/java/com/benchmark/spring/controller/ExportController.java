@@ -0,0 +1,51 @@
+package com.benchmark.spring.controller;
+
+import com.benchmark.spring.repository.ExportRepository;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+/**
+ * REST Controller for streaming catalog exports (COPY TO STDOUT)
+ */
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+    
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    private final ExportRepository exportRepository;
+    
+    public ExportController(ExportRepository exportRepository) {
+        this.exportRepository = exportRepository;
+    }
+    
+    /**
+     * GET /export/items?format=csv|ndjson
+     * Whole catalog in one response, streamed straight from Postgres
+     */
+    @GetMapping("/items")
+    public ResponseEntity<?> exportItems(@RequestParam(defaultValue = "csv") String format) {
+        boolean ndjson;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            ndjson = true;
+        } else if ("csv".equalsIgnoreCase(format)) {
+            ndjson = false;
+        } else {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "format must be csv or ndjson"));
+        }
+        
+        StreamingResponseBody body = output -> exportRepository.exportItems(ndjson, output);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? APPLICATION_NDJSON : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"items." + (ndjson ? "ndjson" : "csv") + "\"")
+                .body(body);
+    }
+}
@@ -1,20 +1,42 @@
 package com.benchmark.spring.controller;
 
+import com.benchmark.spring.dto.BulkResult;
+import com.benchmark.spring.dto.ItemPatch;
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.MergePatch;
+import com.benchmark.spring.dto.Revision;
+import com.benchmark.spring.dto.SliceResponse;
+import com.benchmark.spring.dto.StockAdjustment;
+import com.benchmark.spring.dto.StockResult;
 import com.benchmark.spring.entity.Category;
 import com.benchmark.spring.entity.Item;
 import com.benchmark.spring.service.CategoryService;
 import com.benchmark.spring.service.ItemService;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST Controller for Item endpoints
@@ -23,56 +45,127 @@ import java.net.URI;
 @RequestMapping("/items")
 public class ItemController {
     
+    private static final int MAX_BULK_ROWS = 10000;
+    private static final int MAX_SKU_LOOKUP = 100;
+    
     private final ItemService itemService;
     private final CategoryService categoryService;
+    private final Validator validator;
     
-    public ItemController(ItemService itemService, CategoryService categoryService) {
+    public ItemController(ItemService itemService, CategoryService categoryService, Validator validator) {
         this.itemService = itemService;
         this.categoryService = categoryService;
+        this.validator = validator;
     }
     
     /**
-     * GET /items?page=X&size=Y&categoryId=Z
+     * GET /items?page=X&size=Y&categoryId=Z&withTotal=false
+     * withTotal=false returns a count-free slice.
+     * An If-None-Match is checked against the list revision (newest
+     * updated_at plus count) before any row is read; other responses are
+     * tagged from the rows they return.
      */
     @GetMapping
     public ResponseEntity<?> getAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
-            @RequestParam(required = false) Long categoryId) {
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            WebRequest webRequest) {
         
         if (page < 0 || size <= 0 || size > 1000) {
             return ResponseEntity.badRequest().build();
         }
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Item> items;
+        boolean conditional = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (conditional) {
+            // Also proves the category exists
+            Optional<Revision> revision = itemService.findListRevision(categoryId);
+            if (revision.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            // Sets the ETag header; on a match the response is already a 304
+            if (webRequest.checkNotModified(revision.get().tag())) {
+                return null;
+            }
+        }
         
+        Pageable pageable = PageRequest.of(page, size);
+        Slice<ItemView> items;
         if (categoryId != null) {
-            if (!categoryService.existsById(categoryId)) {
-                return ResponseEntity.notFound().build();
+            if (withTotal) {
+                // Rows, total and category existence in one statement
+                Optional<Page<ItemView>> found = itemService.findByCategoryId(categoryId, pageable);
+                if (found.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+                items = found.get();
+            } else {
+                if (!conditional && !categoryService.existsById(categoryId)) {
+                    return ResponseEntity.notFound().build();
+                }
+                items = itemService.findSliceByCategoryId(categoryId, pageable);
             }
-            items = itemService.findByCategoryId(categoryId, pageable);
         } else {
-            items = itemService.findAll(pageable);
+            items = withTotal ? itemService.findAll(pageable) : itemService.findAllSlice(pageable);
         }
-        
-        return ResponseEntity.ok(items);
+        return listResponse(conditional, items);
+    }
+    
+    /**
+     * 200 for a list; tagged from its rows unless checkNotModified
+     * already set the list revision
+     */
+    static ResponseEntity<?> listResponse(boolean conditional, Slice<ItemView> items) {
+        Object body = items instanceof Page<ItemView> ? items : new SliceResponse<>(items);
+        if (conditional) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok().eTag(Revision.tag(items, Revision::timestamps)).body(body);
     }
     
     /**
      * GET /items/{id}
+     * Served from the near cache and tagged from the view; Spring answers
+     * a matching If-None-Match with a 304 and no body
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getById(@PathVariable Long id) {
-        Item item = itemService.findById(id);
+    public ResponseEntity<ItemView> getById(@PathVariable Long id) {
+        ItemView item = itemService.findById(id);
         if (item == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(item);
+        return ResponseEntity.ok().eTag(Revision.of(item).tag()).body(item);
+    }
+    
+    /**
+     * GET /items/by-sku/{sku}
+     * Resolved through the in-memory SKU index and the near cache
+     */
+    @GetMapping("/by-sku/{sku}")
+    public ResponseEntity<ItemView> getBySku(@PathVariable String sku) {
+        ItemView item = itemService.findBySku(sku);
+        if (item == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(Revision.of(item).tag()).body(item);
+    }
+    
+    /**
+     * GET /items/by-sku?sku=A&sku=B (up to MAX_SKU_LOOKUP)
+     * Items for several SKUs in one statement, plus the SKUs not found
+     */
+    @GetMapping("/by-sku")
+    public ResponseEntity<?> getBySkus(@RequestParam(name = "sku", required = false) List<String> skus) {
+        if (skus == null || skus.isEmpty() || skus.size() > MAX_SKU_LOOKUP) {
+            return ResponseEntity.badRequest().body("Expected between 1 and " + MAX_SKU_LOOKUP + " sku parameters");
+        }
+        return ResponseEntity.ok(itemService.findBySkus(skus));
     }
     
     /**
      * POST /items
+     * Known duplicate SKUs are rejected before a transaction is opened
      */
     @PostMapping
     public ResponseEntity<?> create(@Valid @RequestBody ItemRequest request) {
@@ -80,6 +173,9 @@ public class ItemController {
         if (category == null) {
             return ResponseEntity.badRequest().body("Category not found");
         }
+        if (itemService.isSkuTaken(request.getSku())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("SKU already exists");
+        }
         
         Item item = new Item();
         item.setSku(request.getSku());
@@ -94,6 +190,71 @@ public class ItemController {
                 .body(created);
     }
     
+    /**
+     * POST /items/bulk
+     * Create many items at once; invalid rows are reported, not fatal
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createBulk(@RequestBody List<ItemRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BULK_ROWS) {
+            return ResponseEntity.badRequest().body("Expected between 1 and " + MAX_BULK_ROWS + " items");
+        }
+        
+        BulkResult result = new BulkResult(requests.size());
+        List<Item> items = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        Set<String> skus = new HashSet<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            ItemRequest request = requests.get(i);
+            if (request == null) {
+                result.failed(i, null, "Empty row");
+                continue;
+            }
+            Set<ConstraintViolation<ItemRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<ItemRequest> violation = violations.iterator().next();
+                result.failed(i, request.getSku(), violation.getPropertyPath() + " " + violation.getMessage());
+                continue;
+            }
+            Category category = categoryService.findById(request.getCategoryId());
+            if (category == null) {
+                result.failed(i, request.getSku(), "Category not found");
+                continue;
+            }
+            if (!skus.add(request.getSku())) {
+                result.failed(i, request.getSku(), "Duplicate sku in request");
+                continue;
+            }
+            if (itemService.isSkuTaken(request.getSku())) {
+                result.failed(i, request.getSku(), "SKU already exists");
+                continue;
+            }
+            
+            Item item = new Item();
+            item.setSku(request.getSku());
+            item.setName(request.getName());
+            item.setPrice(request.getPrice());
+            item.setStock(request.getStock());
+            item.setCategory(category);
+            items.add(item);
+            indexes.add(i);
+        }
+        
+        List<String> errors = itemService.createAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            if (errors.get(i) == null) {
+                result.succeeded(indexes.get(i), item.getId());
+            } else {
+                result.failed(indexes.get(i), item.getSku(), errors.get(i));
+            }
+        }
+        result.getErrors().sort(Comparator.comparingInt(BulkResult.RowError::getIndex));
+        
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * PUT /items/{id}
      */
@@ -102,7 +263,7 @@ public class ItemController {
             @PathVariable Long id,
             @Valid @RequestBody ItemRequest request) {
         
-        Item existingItem = itemService.findById(id);
+        Item existingItem = itemService.findByIdForUpdate(id);
         if (existingItem == null) {
             return ResponseEntity.notFound().build();
         }
@@ -128,6 +289,60 @@ public class ItemController {
         return ResponseEntity.ok(updated);
     }
     
+    /**
+     * PATCH /items/{id} (application/merge-patch+json)
+     */
+    @PatchMapping(path = "/{id}", consumes = MergePatch.MEDIA_TYPE)
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody JsonNode body) {
+        ItemPatch patch;
+        try {
+            patch = ItemPatch.from(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (patch.categoryId() != null && !categoryService.existsById(patch.categoryId())) {
+            return ResponseEntity.badRequest().body("Category not found");
+        }
+        return itemService.patch(id, patch)
+                .<ResponseEntity<?>>map(result -> ResponseEntity.ok()
+                        .eTag(Revision.of(result.value()).tag())
+                        .body(result.value()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * POST /items/{id}/stock:adjust {"delta": -2, "floor": 0}
+     * One conditional UPDATE, applied only if the stock stays at or above
+     * the floor (409 otherwise). Hot SKUs (hot-sku-ids) are combined into
+     * one UPDATE per millisecond window; the request completes
+     * asynchronously without holding its servlet thread.
+     */
+    @PostMapping("/{id}/stock:adjust")
+    public CompletableFuture<ResponseEntity<?>> adjustStock(@PathVariable Long id, @RequestBody JsonNode body) {
+        StockAdjustment adjustment;
+        try {
+            adjustment = StockAdjustment.from(body);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+        
+        if (itemService.isHotSku(id)) {
+            return itemService.adjustHotStock(id, adjustment).thenApply(result -> stockResponse(id, result));
+        }
+        return CompletableFuture.completedFuture(stockResponse(id, itemService.adjustStock(id, adjustment)));
+    }
+    
+    private static ResponseEntity<?> stockResponse(Long id, StockResult result) {
+        return switch (result.outcome()) {
+            case APPLIED -> ResponseEntity.ok(new StockLevel(id, result.stock()));
+            case INSUFFICIENT -> ResponseEntity.status(HttpStatus.CONFLICT).body("Insufficient stock");
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+        };
+    }
+    
+    private record StockLevel(Long id, int stock) {
+    }
+    
     /**
      * DELETE /items/{id}
      */
@@ -0,0 +1,15 @@
+package com.benchmark.spring.dto;
+
+import com.benchmark.spring.entity.Category;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only category projection; serializes exactly like {@link Category}
+ */
+public record CategoryView(Long id, String code, String name, LocalDateTime updatedAt) {
+
+    public static CategoryView of(Category category) {
+        return new CategoryView(category.getId(), category.getCode(), category.getName(), category.getUpdatedAt());
+    }
+}
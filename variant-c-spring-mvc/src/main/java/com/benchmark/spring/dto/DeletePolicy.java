@@ -0,0 +1,29 @@
+package com.benchmark.spring.dto;
+
+import java.util.Locale;
+
+/**
+ * What deleting a non-empty category does to its items. Applied with
+ * set-based statements in one transaction, items are never loaded:
+ * REJECT refuses the delete, CASCADE deletes the items, REASSIGN moves
+ * them to another category.
+ */
+public enum DeletePolicy {
+    REJECT, CASCADE, REASSIGN;
+
+    /**
+     * Result of a category delete
+     */
+    public enum Outcome { DELETED, NOT_FOUND, HAS_ITEMS }
+
+    /**
+     * Policy named by the client (case-insensitive)
+     */
+    public static DeletePolicy parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("onItems must be one of reject, cascade, reassign");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.benchmark.spring.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+
+/**
+ * JSON Merge Patch (RFC 7396) member checks shared by the patch DTOs.
+ * Every patchable column is NOT NULL, so a null member (remove) is
+ * rejected rather than applied. Invalid members raise
+ * IllegalArgumentException with a message fit for the client.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    /**
+     * The patch document itself must be an object
+     */
+    public static void requireObject(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Merge patch must be a JSON object");
+        }
+    }
+
+    static String text(String field, JsonNode value, int maxLength) {
+        requirePresent(field, value);
+        if (!value.isTextual() || value.textValue().isBlank()) {
+            throw new IllegalArgumentException(field + " must be a non-blank string");
+        }
+        if (value.textValue().length() > maxLength) {
+            throw new IllegalArgumentException(field + " must be at most " + maxLength + " characters");
+        }
+        return value.textValue();
+    }
+
+    static BigDecimal decimal(String field, JsonNode value) {
+        requirePresent(field, value);
+        if (!value.isNumber() || value.decimalValue().signum() < 0) {
+            throw new IllegalArgumentException(field + " must be a non-negative number");
+        }
+        return value.decimalValue();
+    }
+
+    static Integer count(String field, JsonNode value) {
+        requirePresent(field, value);
+        if (!value.isIntegralNumber() || !value.canConvertToInt() || value.intValue() < 0) {
+            throw new IllegalArgumentException(field + " must be a non-negative integer");
+        }
+        return value.intValue();
+    }
+
+    static Long id(String field, JsonNode value) {
+        requirePresent(field, value);
+        if (!value.isIntegralNumber() || !value.canConvertToLong()) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+        return value.longValue();
+    }
+
+    static IllegalArgumentException unknown(String field) {
+        return new IllegalArgumentException("Unknown or read-only field: " + field);
+    }
+
+    private static void requirePresent(String field, JsonNode value) {
+        if (value.isNull()) {
+            throw new IllegalArgumentException(field + " cannot be removed");
+        }
+    }
+}
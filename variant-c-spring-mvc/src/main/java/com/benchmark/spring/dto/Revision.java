@@ -0,0 +1,70 @@
+package com.benchmark.spring.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Strong validator for a resource or a filtered collection: the newest
+ * updated_at its representation depends on, plus its row count. An
+ * insert or update moves the timestamp, a delete changes the count.
+ */
+public record Revision(LocalDateTime lastModified, long count) {
+
+    /**
+     * Revision from the timestamps a representation embeds (nulls ignored)
+     */
+    public static Revision of(long count, LocalDateTime... timestamps) {
+        LocalDateTime latest = null;
+        for (LocalDateTime timestamp : timestamps) {
+            if (timestamp != null && (latest == null || timestamp.isAfter(latest))) {
+                latest = timestamp;
+            }
+        }
+        return new Revision(latest, count);
+    }
+
+    /**
+     * Revision of a single item; it embeds its category
+     */
+    public static Revision of(ItemView item) {
+        return of(1, item.updatedAt(), item.category() != null ? item.category().updatedAt() : null);
+    }
+
+    /**
+     * Tag of rows already read, for lists served without the revision
+     * query. A page carries the list's total, so its tag equals the list
+     * revision whenever it holds the newest row. A slice has no total and
+     * is suffixed so it never matches one; the first conditional request
+     * trades it for the list revision.
+     */
+    public static <T> String tag(Slice<T> rows, Function<T, Stream<LocalDateTime>> timestamps) {
+        LocalDateTime[] embedded = rows.stream().flatMap(timestamps).toArray(LocalDateTime[]::new);
+        if (rows instanceof Page<T> page) {
+            return of(page.getTotalElements(), embedded).tag();
+        }
+        return of(rows.getNumberOfElements(), embedded).tag() + "-s";
+    }
+
+    /**
+     * Timestamps an item view embeds
+     */
+    public static Stream<LocalDateTime> timestamps(ItemView item) {
+        return Stream.of(item.updatedAt(), item.category() != null ? item.category().updatedAt() : null);
+    }
+
+    /**
+     * Opaque entity tag value (unquoted)
+     */
+    public String tag() {
+        long micros = 0;
+        if (lastModified != null) {
+            micros = lastModified.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastModified.getNano() / 1_000;
+        }
+        return Long.toString(micros, 36) + "-" + Long.toString(count, 36);
+    }
+}
@@ -0,0 +1,22 @@
+package com.benchmark.spring.dto;
+
+/**
+ * Outcome of a stock adjustment, with the stock right after it (applied)
+ * or the stock that was too low (insufficient)
+ */
+public record StockResult(Outcome outcome, int stock) {
+
+    public enum Outcome { APPLIED, INSUFFICIENT, NOT_FOUND }
+
+    public static StockResult applied(int stock) {
+        return new StockResult(Outcome.APPLIED, stock);
+    }
+
+    public static StockResult insufficient(int stock) {
+        return new StockResult(Outcome.INSUFFICIENT, stock);
+    }
+
+    public static StockResult notFound() {
+        return new StockResult(Outcome.NOT_FOUND, 0);
+    }
+}
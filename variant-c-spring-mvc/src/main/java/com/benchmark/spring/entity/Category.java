@@ -34,8 +34,9 @@ public class Category {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // No cascade: item deletes are set-based statements, see CategoryRepository
     @JsonIgnore
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "category")
     @JsonIgnoreProperties("category")
     private List<Item> items = new ArrayList<>();
 
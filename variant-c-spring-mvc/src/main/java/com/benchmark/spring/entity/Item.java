@@ -14,8 +14,11 @@ import java.time.LocalDateTime;
 @Table(name = "item")
 public class Item {
 
+    // Pooled sequence (increment 50, see schema.sql): ids are allocated
+    // without an INSERT, so Hibernate can JDBC-batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
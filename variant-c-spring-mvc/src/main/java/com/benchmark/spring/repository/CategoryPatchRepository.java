@@ -0,0 +1,21 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.CategoryPatch;
+import com.benchmark.spring.dto.CategoryView;
+import com.benchmark.spring.dto.PatchResult;
+
+import java.util.Optional;
+
+/**
+ * Custom fragment of {@link CategoryRepository}: merge patches applied
+ * with a single UPDATE ... RETURNING and no prior read
+ */
+public interface CategoryPatchRepository {
+
+    /**
+     * Apply the patch, rewriting the row only if a value differs
+     *
+     * @return empty if the category does not exist
+     */
+    Optional<PatchResult<CategoryView>> patch(Long id, CategoryPatch patch);
+}
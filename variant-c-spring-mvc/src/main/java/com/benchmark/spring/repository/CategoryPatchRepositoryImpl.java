@@ -0,0 +1,44 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.CategoryPatch;
+import com.benchmark.spring.dto.CategoryView;
+import com.benchmark.spring.dto.PatchResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Category merge patches, see {@link PatchStatement}
+ */
+public class CategoryPatchRepositoryImpl implements CategoryPatchRepository {
+
+    // Category row (patched or current)
+    private static final String PATCH_SELECT =
+        "SELECT r.id, r.code, r.name, r.updated_at, %1$s AS changed FROM %2$s r";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<PatchResult<CategoryView>> patch(Long id, CategoryPatch patch) {
+        PatchStatement statement = new PatchStatement("category")
+                .set("code", patch.code())
+                .set("name", patch.name());
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(statement.sql(PATCH_SELECT))
+                .addScalar("id", Long.class)
+                .addScalar("code", String.class)
+                .addScalar("name", String.class)
+                .addScalar("updated_at", LocalDateTime.class)
+                .addScalar("changed", Boolean.class);
+        return statement.bind(query, id).getResultStream()
+                .findFirst()
+                .map(row -> new PatchResult<>(new CategoryView((Long) row[0], (String) row[1],
+                        (String) row[2], (LocalDateTime) row[3]), (Boolean) row[4]));
+    }
+}
@@ -1,14 +1,57 @@
 package com.benchmark.spring.repository;
 
 import com.benchmark.spring.entity.Category;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Spring Data JPA Repository for Category
  */
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryPatchRepository {
     // Spring Data JPA provides all basic CRUD operations automatically
     // findAll, findById, save, delete, etc.
+    
+    /**
+     * Count-free page of categories (fetches size + 1 rows)
+     */
+    Slice<Category> findSliceBy(Pageable pageable);
+    
+    /**
+     * Set-based delete: the items of a category are removed, moved or
+     * checked with single statements, never loaded. Locking the category
+     * row first also blocks concurrent inserts into it. Deleted rows leave
+     * tombstones for the change feeds.
+     */
+    @Query(value = "SELECT id FROM category WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+    
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM item WHERE category_id = :id)", nativeQuery = true)
+    boolean hasItems(@Param("id") Long id);
+    
+    @Modifying
+    @Query(value = "WITH deleted AS (DELETE FROM item WHERE category_id = :id RETURNING id)"
+            + " INSERT INTO item_tombstone (id, deleted_at) SELECT id, now() FROM deleted"
+            + " ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at",
+           nativeQuery = true)
+    int deleteItems(@Param("id") Long id);
+    
+    @Modifying
+    @Query(value = "UPDATE item SET category_id = :target, updated_at = now() WHERE category_id = :id",
+           nativeQuery = true)
+    int reassignItems(@Param("id") Long id, @Param("target") Long target);
+    
+    @Modifying
+    @Query(value = "WITH deleted AS (DELETE FROM category WHERE id = :id RETURNING id)"
+            + " INSERT INTO category_tombstone (id, deleted_at) SELECT id, now() FROM deleted"
+            + " ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at",
+           nativeQuery = true)
+    int deleteRow(@Param("id") Long id);
 }
@@ -0,0 +1,30 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.Revision;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+/**
+ * Custom fragment of {@link ItemRepository}: item pages whose rows, total
+ * and category existence come back from a single SQL statement, and the
+ * list validators used for conditional GETs
+ */
+public interface ItemPageRepository {
+
+    /**
+     * Page of items, optionally by category, with its total
+     *
+     * @return empty if the category does not exist
+     */
+    Optional<Page<ItemView>> findPageWithTotal(Long categoryId, Pageable pageable);
+
+    /**
+     * Validator of the item list, optionally by category
+     *
+     * @return empty if the category does not exist
+     */
+    Optional<Revision> findListRevision(Long categoryId);
+}
@@ -0,0 +1,123 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.CategoryView;
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.Revision;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Single-statement item pages. The count (and the category row) always
+ * yield a row and the page is LEFT JOINed onto it, so no row at all means
+ * the category does not exist and a row with a null item_id means an
+ * empty page. Replaces exists + page query + COUNT.
+ */
+public class ItemPageRepositoryImpl implements ItemPageRepository {
+
+    private static final String PAGE_SELECT =
+        "SELECT t.total, p.id AS item_id, p.sku, p.name AS item_name, p.price, p.stock,"
+            + " p.updated_at AS item_updated_at, c.id AS category_id, c.code,"
+            + " c.name AS category_name, c.updated_at AS category_updated_at ";
+
+    private static final String PAGE_BY_CATEGORY = PAGE_SELECT
+        + "FROM category c"
+        + " CROSS JOIN LATERAL (SELECT count(*) AS total FROM item WHERE category_id = c.id) t"
+        + " LEFT JOIN LATERAL (SELECT i.id, i.sku, i.name, i.price, i.stock, i.updated_at FROM item i"
+        + " WHERE i.category_id = c.id ORDER BY i.id LIMIT :limit OFFSET :offset) p ON true"
+        + " WHERE c.id = :categoryId ORDER BY p.id";
+
+    private static final String PAGE_ALL = PAGE_SELECT
+        + "FROM (SELECT count(*) AS total FROM item) t"
+        + " LEFT JOIN LATERAL (SELECT i.id, i.sku, i.name, i.price, i.stock, i.updated_at, i.category_id"
+        + " FROM item i ORDER BY i.id LIMIT :limit OFFSET :offset) p ON true"
+        + " LEFT JOIN category c ON c.id = p.category_id ORDER BY p.id";
+
+    // Newest updated_at among the items and the categories they embed,
+    // plus the item count; no row when the category does not exist.
+    // These visit every item (of the category), so they only run to
+    // answer an If-None-Match
+    private static final String REVISION_ALL =
+        "SELECT greatest((SELECT max(updated_at) FROM item), (SELECT max(updated_at) FROM category))"
+            + " AS last_modified, (SELECT count(*) FROM item) AS total";
+
+    private static final String REVISION_BY_CATEGORY =
+        "SELECT greatest(c.updated_at, s.last_modified) AS last_modified, s.total FROM category c"
+            + " CROSS JOIN LATERAL (SELECT max(updated_at) AS last_modified, count(*) AS total"
+            + " FROM item WHERE category_id = c.id) s"
+            + " WHERE c.id = :categoryId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Page<ItemView>> findPageWithTotal(Long categoryId, Pageable pageable) {
+        NativeQuery<Object[]> query = pageQuery(entityManager.unwrap(Session.class),
+                categoryId != null ? PAGE_BY_CATEGORY : PAGE_ALL);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        List<Object[]> rows = query.setParameter("limit", pageable.getPageSize())
+                .setParameter("offset", pageable.getOffset())
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<Long, CategoryView> categories = new HashMap<>();
+        List<ItemView> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue;
+            }
+            CategoryView category = categories.computeIfAbsent((Long) row[7], id ->
+                    new CategoryView(id, (String) row[8], (String) row[9], (LocalDateTime) row[10]));
+            items.add(new ItemView((Long) row[1], (String) row[2], (String) row[3], (BigDecimal) row[4],
+                    (Integer) row[5], category, (LocalDateTime) row[6]));
+        }
+        return Optional.of(new PageImpl<>(items, pageable, (Long) rows.get(0)[0]));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Revision> findListRevision(Long categoryId) {
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(categoryId != null ? REVISION_BY_CATEGORY : REVISION_ALL)
+                .addScalar("last_modified", LocalDateTime.class)
+                .addScalar("total", Long.class);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        return query.getResultStream()
+                .findFirst()
+                .map(row -> new Revision((LocalDateTime) row[0], (Long) row[1]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NativeQuery<Object[]> pageQuery(Session session, String sql) {
+        return session.createNativeQuery(sql)
+                .addScalar("total", Long.class)
+                .addScalar("item_id", Long.class)
+                .addScalar("sku", String.class)
+                .addScalar("item_name", String.class)
+                .addScalar("price", BigDecimal.class)
+                .addScalar("stock", Integer.class)
+                .addScalar("item_updated_at", LocalDateTime.class)
+                .addScalar("category_id", Long.class)
+                .addScalar("code", String.class)
+                .addScalar("category_name", String.class)
+                .addScalar("category_updated_at", LocalDateTime.class);
+    }
+}
@@ -0,0 +1,21 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.ItemPatch;
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.PatchResult;
+
+import java.util.Optional;
+
+/**
+ * Custom fragment of {@link ItemRepository}: merge patches applied with
+ * a single UPDATE ... RETURNING and no prior read
+ */
+public interface ItemPatchRepository {
+
+    /**
+     * Apply the patch, rewriting the row only if a value differs
+     *
+     * @return empty if the item does not exist
+     */
+    Optional<PatchResult<ItemView>> patch(Long id, ItemPatch patch);
+}
@@ -0,0 +1,59 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.CategoryView;
+import com.benchmark.spring.dto.ItemPatch;
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.PatchResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Item merge patches, see {@link PatchStatement}
+ */
+public class ItemPatchRepositoryImpl implements ItemPatchRepository {
+
+    // Item row (patched or current) with its category
+    private static final String PATCH_SELECT =
+        "SELECT r.id AS item_id, r.sku, r.name AS item_name, r.price, r.stock, r.updated_at AS item_updated_at,"
+            + " c.id AS category_id, c.code, c.name AS category_name, c.updated_at AS category_updated_at,"
+            + " %1$s AS changed FROM %2$s r JOIN category c ON c.id = r.category_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<PatchResult<ItemView>> patch(Long id, ItemPatch patch) {
+        PatchStatement statement = new PatchStatement("item")
+                .set("sku", patch.sku())
+                .set("name", patch.name())
+                .set("price", patch.price(), "numeric(10,2)")
+                .set("stock", patch.stock())
+                .set("category_id", patch.categoryId());
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(statement.sql(PATCH_SELECT))
+                .addScalar("item_id", Long.class)
+                .addScalar("sku", String.class)
+                .addScalar("item_name", String.class)
+                .addScalar("price", BigDecimal.class)
+                .addScalar("stock", Integer.class)
+                .addScalar("item_updated_at", LocalDateTime.class)
+                .addScalar("category_id", Long.class)
+                .addScalar("code", String.class)
+                .addScalar("category_name", String.class)
+                .addScalar("category_updated_at", LocalDateTime.class)
+                .addScalar("changed", Boolean.class);
+        return statement.bind(query, id).getResultStream()
+                .findFirst()
+                .map(row -> new PatchResult<>(new ItemView((Long) row[0], (String) row[1], (String) row[2],
+                        (BigDecimal) row[3], (Integer) row[4],
+                        new CategoryView((Long) row[6], (String) row[7], (String) row[8], (LocalDateTime) row[9]),
+                        (LocalDateTime) row[5]), (Boolean) row[10]));
+    }
+}
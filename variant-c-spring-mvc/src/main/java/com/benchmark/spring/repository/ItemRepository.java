@@ -1,18 +1,33 @@
 package com.benchmark.spring.repository;
 
+import com.benchmark.spring.dto.ItemView;
 import com.benchmark.spring.entity.Item;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data JPA Repository for Item
  */
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemPageRepository, ItemPatchRepository,
+                                        ItemStockRepository {
+    
+    String VIEW_SELECT =
+        "SELECT new com.benchmark.spring.dto.ItemView(i.id, i.sku, i.name, i.price, i.stock,"
+            + " c.id, c.code, c.name, c.updatedAt, i.updatedAt) FROM Item i JOIN i.category c ";
     
     /**
      * Find items by category ID with pagination
@@ -33,4 +48,48 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query(value = "SELECT i FROM Item i JOIN FETCH i.category",
            countQuery = "SELECT COUNT(i) FROM Item i")
     Page<Item> findAllWithCategory(Pageable pageable);
+    
+    /**
+     * Slice variants: Spring Data fetches size + 1 rows to compute
+     * hasNext and never issues a COUNT query
+     */
+    Slice<Item> findSliceBy(Pageable pageable);
+    
+    @Query("SELECT i FROM Item i WHERE i.category.id = :categoryId")
+    Slice<Item> findSliceByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+    
+    /**
+     * Projection reads: exactly the columns the JSON needs, straight into
+     * ItemView, never registered in the persistence context
+     */
+    @Query(VIEW_SELECT + "WHERE i.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<ItemView> findViewById(@Param("id") Long id);
+    
+    @Query(VIEW_SELECT + "WHERE i.sku = :sku")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<ItemView> findViewBySku(@Param("sku") String sku);
+    
+    @Query(VIEW_SELECT + "WHERE i.sku IN :skus")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<ItemView> findViewsBySku(@Param("skus") Collection<String> skus);
+    
+    @Query(VIEW_SELECT)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<ItemView> findViewSliceBy(Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE c.id = :categoryId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<ItemView> findViewSliceByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+    
+    /**
+     * Delete an item and record its tombstone (read by the change feeds
+     * of the Jersey variant) in one statement
+     */
+    @Modifying
+    @Query(value = "WITH deleted AS (DELETE FROM item WHERE id = :id RETURNING id)"
+            + " INSERT INTO item_tombstone (id, deleted_at) SELECT id, now() FROM deleted"
+            + " ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at",
+           nativeQuery = true)
+    int deleteRow(@Param("id") Long id);
 }
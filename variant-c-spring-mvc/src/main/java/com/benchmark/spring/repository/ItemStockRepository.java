@@ -0,0 +1,18 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.StockResult;
+
+/**
+ * Custom fragment of {@link ItemRepository}: stock adjustments as one
+ * conditional UPDATE, no prior read
+ */
+public interface ItemStockRepository {
+
+    /**
+     * Add delta to the stock if the current stock is at least required.
+     * The stock comes back either way: after the change, or as found when
+     * it was too low. Also applies a combined batch, with its net delta
+     * and strictest requirement.
+     */
+    StockResult adjustStock(Long id, long delta, long required);
+}
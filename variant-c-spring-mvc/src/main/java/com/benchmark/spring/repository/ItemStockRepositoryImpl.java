@@ -0,0 +1,38 @@
+package com.benchmark.spring.repository;
+
+import com.benchmark.spring.dto.StockResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+/**
+ * Stock adjustments, see {@link ItemStockRepository}
+ */
+public class ItemStockRepositoryImpl implements ItemStockRepository {
+
+    // Conditional stock change (stock + delta >= floor as stock >= floor - delta)
+    private static final String ADJUST_STOCK =
+        "WITH updated AS (UPDATE item SET stock = stock + :delta, updated_at = now()"
+            + " WHERE id = :id AND stock >= :required RETURNING stock)"
+            + " SELECT stock, true AS applied FROM updated"
+            + " UNION ALL SELECT stock, false FROM item WHERE id = :id AND NOT EXISTS (SELECT 1 FROM updated)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public StockResult adjustStock(Long id, long delta, long required) {
+        List<?> rows = entityManager.createNativeQuery(ADJUST_STOCK)
+                .setParameter("id", id)
+                .setParameter("delta", delta)
+                .setParameter("required", required)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return StockResult.notFound();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        int stock = ((Number) row[0]).intValue();
+        return Boolean.TRUE.equals(row[1]) ? StockResult.applied(stock) : StockResult.insufficient(stock);
+    }
+}
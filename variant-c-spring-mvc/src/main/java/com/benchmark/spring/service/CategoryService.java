@@ -1,12 +1,28 @@
 package com.benchmark.spring.service;
 
+import com.benchmark.spring.cache.CatalogChangePublisher;
+import com.benchmark.spring.cache.NearCache;
+import com.benchmark.spring.dto.CategoryPatch;
+import com.benchmark.spring.dto.CategoryView;
+import com.benchmark.spring.dto.DeletePolicy;
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.PatchResult;
+import com.benchmark.spring.dto.Revision;
 import com.benchmark.spring.entity.Category;
 import com.benchmark.spring.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 /**
  * Service layer for Category operations
  */
@@ -15,30 +31,135 @@ import org.springframework.transaction.annotation.Transactional;
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final NearCache<Category> categoryCache;
+    private final NearCache<ItemView> itemCache;
+    private final CatalogChangePublisher changePublisher;
+    private final DeletePolicy defaultDeletePolicy;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository,
+                           NearCache<Category> categoryCache,
+                           NearCache<ItemView> itemCache,
+                           CatalogChangePublisher changePublisher,
+                           @Value("${category.delete-policy:reject}") String defaultDeletePolicy) {
         this.categoryRepository = categoryRepository;
+        this.categoryCache = categoryCache;
+        this.itemCache = itemCache;
+        this.changePublisher = changePublisher;
+        this.defaultDeletePolicy = DeletePolicy.parse(defaultDeletePolicy);
     }
     
     public Page<Category> findAll(Pageable pageable) {
         return categoryRepository.findAll(pageable);
     }
     
+    public Slice<Category> findAllSlice(Pageable pageable) {
+        return categoryRepository.findSliceBy(pageable);
+    }
+    
+    /**
+     * Validator of the category list (one aggregate query)
+     */
+    public Revision listRevision() {
+        Object[] row = entityManager.createQuery(
+                "SELECT MAX(c.updatedAt), COUNT(c) FROM Category c", Object[].class)
+                .getSingleResult();
+        return new Revision((LocalDateTime) row[0], (Long) row[1]);
+    }
+    
+    /**
+     * Served from the near cache; no transaction is opened on a hit
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Category findById(Long id) {
-        return categoryRepository.findById(id).orElse(null);
+        return categoryCache.get(id, () -> categoryRepository.findById(id).orElse(null));
     }
     
     @Transactional
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        invalidate(saved.getId());
+        changePublisher.categoryChanged(saved.getId());
+        return saved;
+    }
+    
+    /**
+     * Apply a merge patch (single UPDATE ... RETURNING, no prior read).
+     * Caches and peers hear about it only if a value actually changed.
+     *
+     * @return empty if the category does not exist
+     */
+    @Transactional
+    public Optional<PatchResult<CategoryView>> patch(Long id, CategoryPatch patch) {
+        if (patch.isEmpty()) {
+            return Optional.ofNullable(findById(id)).map(category -> new PatchResult<>(CategoryView.of(category), false));
+        }
+        Optional<PatchResult<CategoryView>> result = categoryRepository.patch(id, patch);
+        if (result.isPresent() && result.get().changed()) {
+            invalidate(id);
+            changePublisher.categoryChanged(id);
+        }
+        return result;
+    }
+    
+    /**
+     * Delete category, applying the policy to its items with set-based
+     * statements in this one transaction (items are never loaded)
+     *
+     * @param target destination category for REASSIGN
+     */
+    @Transactional
+    public DeletePolicy.Outcome deleteById(Long id, DeletePolicy policy, Long target) {
+        if (categoryRepository.lockById(id).isEmpty()) {
+            return DeletePolicy.Outcome.NOT_FOUND;
+        }
+        switch (policy) {
+            case REJECT -> {
+                if (categoryRepository.hasItems(id)) {
+                    return DeletePolicy.Outcome.HAS_ITEMS;
+                }
+            }
+            case CASCADE -> categoryRepository.deleteItems(id);
+            case REASSIGN -> categoryRepository.reassignItems(id, target);
+        }
+        categoryRepository.deleteRow(id);
+        invalidate(id);
+        changePublisher.categoryChanged(id);
+        return DeletePolicy.Outcome.DELETED;
     }
     
+    /**
+     * Delete every item of a category in one statement
+     *
+     * @return number of items deleted
+     */
     @Transactional
-    public void deleteById(Long id) {
-        categoryRepository.deleteById(id);
+    public int deleteItems(Long id) {
+        int deleted = categoryRepository.deleteItems(id);
+        invalidate(id);
+        changePublisher.categoryChanged(id);
+        return deleted;
     }
     
+    /**
+     * Policy for deletes that do not name one (category.delete-policy)
+     */
+    public DeletePolicy defaultDeletePolicy() {
+        return defaultDeletePolicy;
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean existsById(Long id) {
-        return categoryRepository.existsById(id);
+        return categoryCache.contains(id) || categoryRepository.existsById(id);
+    }
+    
+    /**
+     * Cached items embed their category, drop them as well
+     */
+    private void invalidate(Long id) {
+        categoryCache.invalidate(id);
+        itemCache.invalidateIf(item -> id.equals(item.category().id()));
     }
 }
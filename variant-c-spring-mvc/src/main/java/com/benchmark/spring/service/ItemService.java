@@ -1,11 +1,39 @@
 package com.benchmark.spring.service;
 
+import com.benchmark.spring.cache.CatalogChangePublisher;
+import com.benchmark.spring.cache.NearCache;
+import com.benchmark.spring.cache.SkuIndex;
+import com.benchmark.spring.dto.ItemPatch;
+import com.benchmark.spring.dto.ItemView;
+import com.benchmark.spring.dto.PatchResult;
+import com.benchmark.spring.dto.Revision;
+import com.benchmark.spring.dto.SkuLookup;
+import com.benchmark.spring.dto.StockAdjustment;
+import com.benchmark.spring.dto.StockResult;
 import com.benchmark.spring.entity.Item;
 import com.benchmark.spring.repository.ItemRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service layer for Item operations
@@ -14,46 +42,317 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional(readOnly = true)
 public class ItemService {
     
+    // Rows committed per transaction by createAll
+    private static final int BULK_CHUNK_SIZE = 2000;
+    // JDBC batch size (and flush/clear interval) for bulk inserts
+    private static final int BULK_BATCH_SIZE = 500;
+    
     private final ItemRepository itemRepository;
+    private final NearCache<ItemView> itemCache;
+    private final CatalogChangePublisher changePublisher;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate writeTx;
+    private final StockCombiner stockCombiner;
+    private final SkuIndex skuIndex;
     private final boolean useJoinFetch;
     
-    public ItemService(ItemRepository itemRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public ItemService(ItemRepository itemRepository,
+                       NearCache<ItemView> itemCache,
+                       CatalogChangePublisher changePublisher,
+                       PlatformTransactionManager transactionManager,
+                       SkuIndex skuIndex,
+                       @Value("${hot-sku-ids:}") String hotSkuIds) {
         this.itemRepository = itemRepository;
+        this.skuIndex = skuIndex;
+        this.itemCache = itemCache;
+        this.changePublisher = changePublisher;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.stockCombiner = new StockCombiner(hotSkuIds,
+                (id, delta, required) -> writeTx.execute(status -> applyStock(id, delta, required)));
         // Check environment variable for JOIN FETCH mode
         this.useJoinFetch = Boolean.parseBoolean(
             System.getenv().getOrDefault("USE_JOIN_FETCH", "true")
         );
     }
     
-    public Page<Item> findAll(Pageable pageable) {
+    /**
+     * With JOIN FETCH, rows and total come from one statement as
+     * read-only projections; otherwise entities are loaded and mapped
+     * (categories load lazily, one query each)
+     */
+    public Page<ItemView> findAll(Pageable pageable) {
+        if (useJoinFetch) {
+            return itemRepository.findPageWithTotal(null, pageable).orElseThrow();
+        }
+        return itemRepository.findAll(pageable).map(ItemView::of);
+    }
+    
+    /**
+     * With JOIN FETCH, rows, total and the category's existence come from
+     * one statement; otherwise exists, page query and COUNT run separately.
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<Page<ItemView>> findByCategoryId(Long categoryId, Pageable pageable) {
         if (useJoinFetch) {
-            return itemRepository.findAllWithCategory(pageable);
+            return itemRepository.findPageWithTotal(categoryId, pageable);
+        }
+        long categories = entityManager.createQuery(
+                "SELECT COUNT(c) FROM Category c WHERE c.id = :id", Long.class)
+                .setParameter("id", categoryId)
+                .getSingleResult();
+        if (categories == 0) {
+            return Optional.empty();
         }
-        return itemRepository.findAll(pageable);
+        return Optional.of(itemRepository.findByCategoryId(categoryId, pageable).map(ItemView::of));
     }
     
-    public Page<Item> findByCategoryId(Long categoryId, Pageable pageable) {
+    public Slice<ItemView> findAllSlice(Pageable pageable) {
         if (useJoinFetch) {
-            return itemRepository.findByCategoryIdWithJoin(categoryId, pageable);
+            return itemRepository.findViewSliceBy(pageable);
+        }
+        return itemRepository.findSliceBy(pageable).map(ItemView::of);
+    }
+    
+    public Slice<ItemView> findSliceByCategoryId(Long categoryId, Pageable pageable) {
+        if (useJoinFetch) {
+            return itemRepository.findViewSliceByCategoryId(categoryId, pageable);
+        }
+        return itemRepository.findSliceByCategoryId(categoryId, pageable).map(ItemView::of);
+    }
+    
+    /**
+     * Served from the near cache; no transaction (and no pooled
+     * connection) is opened on a hit. Views are immutable, use
+     * findByIdForUpdate to modify an item.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ItemView findById(Long id) {
+        return itemCache.get(id, () -> readOnlyTx.execute(status -> loadView(id)));
+    }
+    
+    /**
+     * Find an item by SKU: an index hit is confirmed through the near
+     * cache (no query when cached); a miss or a stale entry falls back to
+     * the unique sku index in the database and repairs the entry
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ItemView findBySku(String sku) {
+        ItemView view = indexed(sku);
+        if (view != null) {
+            return view;
+        }
+        view = readOnlyTx.execute(status -> itemRepository.findViewBySku(sku).orElse(null));
+        if (view != null) {
+            skuIndex.put(view.id(), view.sku());
+        }
+        return view;
+    }
+    
+    /**
+     * Find items for several SKUs with one statement (duplicates collapse)
+     */
+    public SkuLookup findBySkus(List<String> skus) {
+        Set<String> wanted = new LinkedHashSet<>(skus);
+        Map<String, ItemView> found = new HashMap<>();
+        for (ItemView view : itemRepository.findViewsBySku(wanted)) {
+            found.put(view.sku(), view);
+            skuIndex.put(view.id(), view.sku());
         }
-        return itemRepository.findByCategoryId(categoryId, pageable);
+        List<ItemView> items = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String sku : wanted) {
+            ItemView view = found.get(sku);
+            if (view != null) {
+                items.add(view);
+            } else {
+                missing.add(sku);
+            }
+        }
+        return new SkuLookup(items, missing);
+    }
+    
+    /**
+     * Whether the SKU is known to be taken. The Bloom filter clears most
+     * new SKUs without a lookup; the rest are confirmed through the near
+     * cache. SKUs the index has not seen are left to the unique constraint.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean isSkuTaken(String sku) {
+        return skuIndex.mightBeTaken(sku) && indexed(sku) != null;
+    }
+    
+    // Index hit confirmed against the (coherent) near cache, or null
+    private ItemView indexed(String sku) {
+        Long id = skuIndex.idOf(sku);
+        if (id == null) {
+            return null;
+        }
+        ItemView view = findById(id);
+        if (view == null) {
+            skuIndex.remove(id);
+            return null;
+        }
+        if (!view.sku().equals(sku)) {
+            // Renamed, possibly by a peer
+            skuIndex.put(id, view.sku());
+            return null;
+        }
+        return view;
+    }
+    
+    /**
+     * Validator of the item list, optionally by category
+     *
+     * @return empty if the category does not exist
+     */
+    public Optional<Revision> findListRevision(Long categoryId) {
+        return itemRepository.findListRevision(categoryId);
     }
     
-    public Item findById(Long id) {
+    /**
+     * Uncached, private copy for read-modify-write
+     */
+    public Item findByIdForUpdate(Long id) {
         return itemRepository.findById(id).orElse(null);
     }
     
     @Transactional
     public Item save(Item item) {
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        itemCache.invalidate(saved.getId());
+        skuIndex.put(saved.getId(), saved.getSku());
+        changePublisher.itemChanged(saved.getId());
+        return saved;
+    }
+    
+    /**
+     * Apply a merge patch (single UPDATE ... RETURNING, no prior read).
+     * Cache and peers hear about it only if a value actually changed.
+     *
+     * @return empty if the item does not exist
+     */
+    @Transactional
+    public Optional<PatchResult<ItemView>> patch(Long id, ItemPatch patch) {
+        if (patch.isEmpty()) {
+            return Optional.ofNullable(findById(id)).map(view -> new PatchResult<>(view, false));
+        }
+        Optional<PatchResult<ItemView>> result = itemRepository.patch(id, patch);
+        if (result.isPresent() && result.get().changed()) {
+            itemCache.invalidate(id);
+            skuIndex.put(id, result.get().value().sku());
+            changePublisher.itemChanged(id);
+        }
+        return result;
+    }
+    
+    /**
+     * Adjust stock with one conditional UPDATE (no read, no lost updates)
+     */
+    @Transactional
+    public StockResult adjustStock(Long id, StockAdjustment adjustment) {
+        return applyStock(id, adjustment.delta(), adjustment.required());
+    }
+    
+    /**
+     * Whether adjustments of this item go through the {@link StockCombiner}
+     */
+    public boolean isHotSku(Long id) {
+        return stockCombiner.isHot(id);
+    }
+    
+    /**
+     * Adjust the stock of a hot SKU in the next combined UPDATE
+     */
+    public CompletableFuture<StockResult> adjustHotStock(Long id, StockAdjustment adjustment) {
+        return stockCombiner.submit(id, adjustment);
+    }
+    
+    private StockResult applyStock(Long id, long delta, long required) {
+        StockResult result = itemRepository.adjustStock(id, delta, required);
+        if (result.outcome() == StockResult.Outcome.APPLIED) {
+            itemCache.invalidate(id);
+            changePublisher.itemChanged(id);
+        }
+        return result;
+    }
+    
+    /**
+     * Insert new items, BULK_CHUNK_SIZE rows per transaction, with JDBC
+     * batching (ids come from the pooled item sequence). A chunk that
+     * fails is retried row by row so a bad row only fails itself.
+     * Returns one entry per item: null on success, the error otherwise.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> createAll(List<Item> items) {
+        List<String> errors = new ArrayList<>(Collections.nCopies(items.size(), null));
+        for (int from = 0; from < items.size(); from += BULK_CHUNK_SIZE) {
+            List<Item> chunk = items.subList(from, Math.min(from + BULK_CHUNK_SIZE, items.size()));
+            try {
+                writeTx.executeWithoutResult(status -> persistBatched(chunk));
+            } catch (RuntimeException chunkFailure) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    Item item = chunk.get(i);
+                    // Ids handed out by the rolled-back chunk must not be reused
+                    item.setId(null);
+                    try {
+                        writeTx.executeWithoutResult(status -> entityManager.persist(item));
+                    } catch (RuntimeException e) {
+                        item.setId(null);
+                        errors.set(from + i, rootMessage(e));
+                    }
+                }
+            }
+        }
+        for (Item item : items) {
+            if (item.getId() != null) {
+                skuIndex.put(item.getId(), item.getSku());
+            }
+        }
+        return errors;
+    }
+    
+    private void persistBatched(List<Item> chunk) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(BULK_BATCH_SIZE);
+        for (int i = 0; i < chunk.size(); i++) {
+            entityManager.persist(chunk.get(i));
+            if ((i + 1) % BULK_BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+    }
+    
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
     }
     
     @Transactional
     public void deleteById(Long id) {
-        itemRepository.deleteById(id);
+        itemRepository.deleteRow(id);
+        itemCache.invalidate(id);
+        skuIndex.remove(id);
+        changePublisher.itemChanged(id);
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean existsById(Long id) {
-        return itemRepository.existsById(id);
+        return itemCache.contains(id) || itemRepository.existsById(id);
+    }
+    
+    private ItemView loadView(Long id) {
+        if (useJoinFetch) {
+            return itemRepository.findViewById(id).orElse(null);
+        }
+        return itemRepository.findById(id).map(ItemView::of).orElse(null);
     }
 }
@@ -0,0 +1,149 @@
+package com.benchmark.spring.service;
+
+import com.benchmark.spring.dto.StockAdjustment;
+import com.benchmark.spring.dto.StockResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Combines concurrent stock adjustments on hot SKUs (hot-sku-ids, comma
+ * separated item ids) into one conditional UPDATE per millisecond window
+ * instead of one row-lock round trip each.
+ * <p>
+ * Every hot id has its own queue, so callers of different SKUs never
+ * share a lock. The first adjustment of a window schedules its flush; the
+ * flush applies the whole queue in arrival order with the net delta and
+ * the strictest requirement of any prefix, then gives each caller the
+ * stock right after its own delta. If the batch does not fit, callers are
+ * replayed against the stock found and only those that would have failed
+ * are rejected. Flushes use one thread, so at most one connection.
+ */
+public class StockCombiner {
+
+    private static final long WINDOW_MICROS = 1000;
+
+    /**
+     * Applies one (combined) adjustment in its own transaction
+     */
+    @FunctionalInterface
+    public interface Writer {
+        StockResult adjustStock(Long id, long delta, long required);
+    }
+
+    private final Writer writer;
+    private final Map<Long, Window> windows;
+    private final ScheduledExecutorService flusher;
+
+    public StockCombiner(String hotIds, Writer writer) {
+        this.writer = writer;
+        this.windows = parseIds(hotIds).stream().collect(Collectors.toUnmodifiableMap(id -> id, id -> new Window()));
+        this.flusher = windows.isEmpty() ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-combiner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isHot(Long id) {
+        return windows.containsKey(id);
+    }
+
+    /**
+     * Queue an adjustment of a hot id for the current window
+     */
+    public CompletableFuture<StockResult> submit(Long id, StockAdjustment adjustment) {
+        Window window = windows.get(id);
+        Pending pending = new Pending(adjustment, new CompletableFuture<>());
+        window.queue.add(pending);
+        if (window.scheduled.compareAndSet(false, true)) {
+            flusher.schedule(() -> flush(id, window), WINDOW_MICROS, TimeUnit.MICROSECONDS);
+        }
+        return pending.result;
+    }
+
+    private void flush(Long id, Window window) {
+        // Later arrivals schedule the next window
+        window.scheduled.set(false);
+        List<Pending> batch = new ArrayList<>();
+        for (Pending pending; (pending = window.queue.poll()) != null; ) {
+            batch.add(pending);
+        }
+        try {
+            while (!batch.isEmpty()) {
+                batch = apply(id, batch);
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * One conditional UPDATE for the batch; returns what is left to retry
+     */
+    private List<Pending> apply(Long id, List<Pending> batch) {
+        long net = 0;
+        long required = Long.MIN_VALUE;
+        for (Pending pending : batch) {
+            // stock + net(before) + delta >= floor for every caller
+            required = Math.max(required, pending.adjustment.required() - net);
+            net += pending.adjustment.delta();
+        }
+
+        StockResult result = writer.adjustStock(id, net, required);
+        switch (result.outcome()) {
+            case NOT_FOUND -> batch.forEach(pending -> pending.result.complete(result));
+            case APPLIED -> {
+                long stock = result.stock() - net;
+                for (Pending pending : batch) {
+                    stock += pending.adjustment.delta();
+                    pending.result.complete(StockResult.applied((int) stock));
+                }
+            }
+            case INSUFFICIENT -> {
+                // Replay against the stock found, reject the callers that fail
+                List<Pending> fitting = new ArrayList<>();
+                long stock = result.stock();
+                for (Pending pending : batch) {
+                    if (stock + pending.adjustment.delta() >= pending.adjustment.floor()) {
+                        stock += pending.adjustment.delta();
+                        fitting.add(pending);
+                    } else {
+                        pending.result.complete(StockResult.insufficient((int) stock));
+                    }
+                }
+                // Everyone fitting means the stock moved meanwhile: retry them
+                return fitting;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static List<Long> parseIds(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .distinct()
+                .toList();
+    }
+
+    private static final class Window {
+        final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+
+    private record Pending(StockAdjustment adjustment, CompletableFuture<StockResult> result) {
+    }
+}
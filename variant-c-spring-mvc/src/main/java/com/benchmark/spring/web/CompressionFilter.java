@@ -0,0 +1,623 @@
+package com.benchmark.spring.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiated gzip/deflate response compression and request decompression.
+ * <p>
+ * Used instead of server.compression so the trade-off can be measured:
+ * the first compression.min-size bytes of a body are held back and it is
+ * only compressed once it outgrows them, counting bytes in/out and the
+ * CPU time spent deflating (http.server.compression.*). Compressed
+ * responses get a weak ETag and no Content-Length. Streaming responses
+ * are finished on their async dispatch.
+ * <p>
+ * Request bodies sent with Content-Encoding: gzip or deflate are inflated
+ * before they reach a controller.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final String RESPONSE_ATTRIBUTE = CompressionFilter.class.getName() + ".response";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+
+    private final Counter compressed;
+    private final Counter skipped;
+    private final Counter decompressed;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Counter bytesSaved;
+    private final Timer cpu;
+
+    public CompressionFilter(@Value("${compression.enabled:true}") boolean enabled,
+                             @Value("${compression.min-size:1024}") int minSize,
+                             @Value("${compression.level:6}") int level,
+                             MeterRegistry registry) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+        this.compressed = Counter.builder("http.server.compression.responses")
+                .description("Responses by compression outcome")
+                .tag("outcome", "compressed")
+                .register(registry);
+        this.skipped = Counter.builder("http.server.compression.responses")
+                .description("Responses by compression outcome")
+                .tag("outcome", "below_threshold")
+                .register(registry);
+        this.decompressed = Counter.builder("http.server.compression.requests")
+                .description("Request bodies inflated before reading")
+                .register(registry);
+        this.bytesIn = Counter.builder("http.server.compression.bytes.in")
+                .description("Response bytes before compression")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        this.bytesOut = Counter.builder("http.server.compression.bytes.out")
+                .description("Response bytes after compression")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        this.bytesSaved = Counter.builder("http.server.compression.bytes.saved")
+                .description("Response bytes saved by compression")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        this.cpu = Timer.builder("http.server.compression.cpu")
+                .description("CPU time spent deflating, per compressed response")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Streaming bodies are finished on the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        CompressingResponse compressing = (CompressingResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+        if (compressing == null) {
+            String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+            if (encoding != null && !encoding.equalsIgnoreCase("identity")) {
+                String coding = encoding.trim().toLowerCase(Locale.ROOT);
+                if (!coding.equals("gzip") && !coding.equals("x-gzip") && !coding.equals("deflate")) {
+                    response.setStatus(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    response.getWriter().write("{\"error\": \"Unsupported Content-Encoding\"}");
+                    return;
+                }
+                request = new InflatingRequest(request, coding);
+                decompressed.increment();
+            }
+            if (enabled) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                String coding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+                if (coding != null) {
+                    compressing = new CompressingResponse(response, coding);
+                    request.setAttribute(RESPONSE_ATTRIBUTE, compressing);
+                    response = compressing;
+                }
+            }
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (compressing != null && !request.isAsyncStarted()) {
+                compressing.finish();
+            }
+        }
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type = MediaType.parseMediaType(contentType);
+        String subtype = type.getSubtype();
+        return type.getType().equals("text")
+                || subtype.equals("json") || subtype.endsWith("+json") || subtype.equals("x-ndjson");
+    }
+
+    /**
+     * gzip if acceptable, else deflate, else null (identity)
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzip = 0;
+        float deflate = 0;
+        float any = 0;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            float q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> {
+                    gzip = q;
+                    gzipListed = true;
+                }
+                case "deflate" -> {
+                    deflate = q;
+                    deflateListed = true;
+                }
+                case "*" -> any = q;
+                default -> {
+                }
+            }
+        }
+        if (!gzipListed) {
+            gzip = any;
+        }
+        if (!deflateListed) {
+            deflate = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return "gzip";
+        }
+        return deflate > 0 ? "deflate" : null;
+    }
+
+    private static long cpuTime() {
+        long time = THREADS.getCurrentThreadCpuTime();
+        // Virtual threads report -1: fall back to wall time
+        return time >= 0 ? time : System.nanoTime();
+    }
+
+    /**
+     * Holds back up to minSize bytes, then either deflates the body in the
+     * negotiated coding or (small or non-textual bodies) passes it through
+     */
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String coding;
+        private ThresholdOutputStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+        private boolean bypass;
+
+        CompressingResponse(HttpServletResponse response, String coding) {
+            super(response);
+            this.coding = coding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (bypass) {
+                return super.getOutputStream();
+            }
+            if (stream == null) {
+                stream = new ThresholdOutputStream(this);
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (bypass) {
+                return super.getWriter();
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            // Only known once we decide whether to compress
+            contentLength = len;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = value != null ? Long.parseLong(value) : -1;
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+            } else {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (stream != null) {
+                stream.resetBuffer();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            contentLength = -1;
+            super.reset();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            bypass = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            bypass = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            bypass = true;
+            super.sendRedirect(location);
+        }
+
+        boolean shouldCompress() {
+            return !bypass && getHeader(HttpHeaders.CONTENT_ENCODING) == null && isCompressible(getContentType());
+        }
+
+        void startCompressed() {
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+            String etag = getHeader(HttpHeaders.ETAG);
+            if (etag != null && !etag.startsWith("W/")) {
+                super.setHeader(HttpHeaders.ETAG, "W/" + etag);
+            }
+        }
+
+        void startIdentity(long bufferedBytes, boolean complete) {
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            } else if (complete && !isCommitted()) {
+                super.setContentLengthLong(bufferedBytes);
+            }
+        }
+
+        void finish() throws IOException {
+            if (bypass) {
+                return;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.finish();
+            } else if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        ServletOutputStream target() throws IOException {
+            return super.getOutputStream();
+        }
+    }
+
+    /**
+     * Buffer, then deflate or pass through
+     */
+    private final class ThresholdOutputStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private byte[] buffer = new byte[minSize];
+        private int buffered;
+        private ServletOutputStream target;
+        private DeflaterOutputStream deflater;
+        private Deflater deflateCoder;
+        private long written;
+        private long compressedBytes;
+        private long cpuNanos;
+        private boolean finished;
+
+        ThresholdOutputStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null && buffered + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, buffered, len);
+                buffered += len;
+                return;
+            }
+            if (target == null) {
+                start(false);
+            }
+            if (deflater == null) {
+                target.write(b, off, len);
+                return;
+            }
+            long begin = cpuTime();
+            deflater.write(b, off, len);
+            cpuNanos += cpuTime() - begin;
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Before the threshold there is nothing worth sending yet
+            if (deflater != null) {
+                long begin = cpuTime();
+                deflater.flush();
+                cpuNanos += cpuTime() - begin;
+            } else if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return target == null || target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            throw new UnsupportedOperationException("Non-blocking writes are not supported");
+        }
+
+        void resetBuffer() {
+            if (target == null) {
+                buffered = 0;
+            }
+        }
+
+        private void start(boolean complete) throws IOException {
+            target = response.target();
+            if (!complete && response.shouldCompress()) {
+                response.startCompressed();
+                long begin = cpuTime();
+                OutputStreamCounter counter = new OutputStreamCounter();
+                if (response.coding.equals("gzip")) {
+                    deflater = new GZIPOutputStream(counter, 8192, true) {
+                        {
+                            def.setLevel(level);
+                        }
+                    };
+                } else {
+                    deflateCoder = new Deflater(level);
+                    deflater = new DeflaterOutputStream(counter, deflateCoder, 8192, true);
+                }
+                deflater.write(buffer, 0, buffered);
+                cpuNanos += cpuTime() - begin;
+                written = buffered;
+            } else {
+                response.startIdentity(buffered, complete);
+                target.write(buffer, 0, buffered);
+            }
+            buffer = null;
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                if (buffered > 0 && response.shouldCompress()) {
+                    skipped.increment();
+                }
+                start(true);
+                return;
+            }
+            if (deflater == null) {
+                return;
+            }
+            long begin = cpuTime();
+            // Writes the trailer and frees the native zlib state
+            deflater.close();
+            if (deflateCoder != null) {
+                deflateCoder.end();
+            }
+            cpuNanos += cpuTime() - begin;
+            target.flush();
+
+            compressed.increment();
+            bytesIn.increment(written);
+            bytesOut.increment(compressedBytes);
+            bytesSaved.increment(written - compressedBytes);
+            cpu.record(cpuNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Counts compressed bytes on their way to the container stream,
+         * which it never closes
+         */
+        private final class OutputStreamCounter extends java.io.OutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                target.write(b);
+                compressedBytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target.write(b, off, len);
+                compressedBytes += len;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target.flush();
+            }
+
+            @Override
+            public void close() {
+            }
+        }
+    }
+
+    /**
+     * Request whose body is inflated on read; Content-Encoding and
+     * Content-Length are hidden from the rest of the chain
+     */
+    private static final class InflatingRequest extends HttpServletRequestWrapper {
+
+        private final String coding;
+        private ServletInputStream stream;
+
+        InflatingRequest(HttpServletRequest request, String coding) {
+            super(request);
+            this.coding = coding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                ServletInputStream raw = super.getInputStream();
+                InputStream inflated = coding.equals("deflate") ? new InflaterInputStream(raw) : new GZIPInputStream(raw);
+                stream = new ServletInputStream() {
+                    private boolean finished;
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = inflated.read();
+                        finished = b < 0;
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = inflated.read(b, off, len);
+                        finished = n < 0;
+                        return n;
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return finished;
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener listener) {
+                        throw new UnsupportedOperationException("Non-blocking reads are not supported");
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding() != null ? getCharacterEncoding() : "UTF-8";
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.benchmark.spring.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * JSON, Smile and CBOR bodies of an item or category resource are
+ * different representations, so they get different entity tags: the
+ * negotiated binary format is appended to the revision tag ("...+smile",
+ * "...+cbor"; JSON keeps the bare tag), and If-None-Match is narrowed to
+ * the tags of the format this request negotiates before checkNotModified
+ * or ResponseEntity compares it. Responses carry Vary: Accept, so caches
+ * keep the formats apart.
+ */
+@Component
+public class FormatVariantsFilter extends OncePerRequestFilter {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/items") && !path.startsWith("/categories");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String suffix = suffix(request.getHeader(HttpHeaders.ACCEPT));
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            request = new NarrowedRequest(request, ownTags(ifNoneMatch, suffix));
+        }
+        if (!suffix.isEmpty()) {
+            response = new SuffixedResponse(response, suffix);
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * The If-None-Match entries of the format with its suffix removed, or
+     * null if none is left; "*" matches every format
+     */
+    static String ownTags(String ifNoneMatch, String suffix) {
+        StringJoiner own = new StringJoiner(", ");
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                own.add(value);
+                continue;
+            }
+            boolean weak = value.startsWith("W/");
+            String opaque = (weak ? value.substring(2) : value).replace("\"", "");
+            int plus = opaque.lastIndexOf('+');
+            String format = plus < 0 ? "" : opaque.substring(plus);
+            if (format.equals(suffix)) {
+                own.add((weak ? "W/\"" : "\"") + opaque.substring(0, opaque.length() - suffix.length()) + "\"");
+            }
+        }
+        return own.length() > 0 ? own.toString() : null;
+    }
+
+    /**
+     * Suffix of the first of JSON, Smile or CBOR the client accepts, by
+     * quality then order; wildcards (and no Accept) mean JSON
+     */
+    static String suffix(String accept) {
+        if (accept == null) {
+            return "";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : acceptable) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (type.isCompatibleWith(SMILE)) {
+                return "+smile";
+            }
+            if (type.isCompatibleWith(CBOR)) {
+                return "+cbor";
+            }
+        }
+        return "";
+    }
+
+    private static final class NarrowedRequest extends HttpServletRequestWrapper {
+
+        private final String ifNoneMatch;
+
+        NarrowedRequest(HttpServletRequest request, String ifNoneMatch) {
+            super(request);
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? ifNoneMatch : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)) {
+                return super.getHeaders(name);
+            }
+            return ifNoneMatch == null
+                    ? Collections.emptyEnumeration()
+                    : Collections.enumeration(List.of(ifNoneMatch));
+        }
+    }
+
+    private static final class SuffixedResponse extends HttpServletResponseWrapper {
+
+        private final String suffix;
+
+        SuffixedResponse(HttpServletResponse response, String suffix) {
+            super(response);
+            this.suffix = suffix;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            super.setHeader(name, HttpHeaders.ETAG.equalsIgnoreCase(name) ? suffixed(value) : value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            super.addHeader(name, HttpHeaders.ETAG.equalsIgnoreCase(name) ? suffixed(value) : value);
+        }
+
+        // "tag" -> "tag+cbor", W/"tag" -> W/"tag+cbor"
+        private String suffixed(String etag) {
+            if (etag == null || !etag.endsWith("\"") || etag.endsWith(suffix + "\"")) {
+                return etag;
+            }
+            return etag.substring(0, etag.length() - 1) + suffix + "\"";
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.benchmark.springdata.repository;
 
 import com.benchmark.springdata.entity.Item;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
@@ -19,10 +22,19 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     /**
-     * Custom search endpoint for filtering by category
+     * GET /items, loaded read-only: the entities are only rendered,
+     * so Hibernate keeps no dirty-checking snapshot for them
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<Item> findAll(Pageable pageable);
+
+    /**
+     * Custom search endpoint for filtering by category (read-only)
      * Accessible at: GET /items/search/findByCategoryId?categoryId=1&page=0&size=50
      */
     @RestResource(path = "findByCategoryId", rel = "findByCategoryId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT i FROM Item i JOIN FETCH i.category WHERE i.category.id = :categoryId")
     Page<Item> findByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
 